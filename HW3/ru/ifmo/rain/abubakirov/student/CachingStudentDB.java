@@ -0,0 +1,108 @@
+package ru.ifmo.rain.abubakirov.student;
+
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * {@link StudentDB} caching query results over {@link Versioned} rosters,
+ * such as {@link StudentSnapshot} and {@link StudentRepository#students()}.
+ * Cached results are shared unmodifiable instances. Queries over other collections are not cached.
+ */
+public class CachingStudentDB extends StudentDB {
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private final QueryCache cache;
+
+    public CachingStudentDB() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity maximal number of cached results.
+     */
+    public CachingStudentDB(int capacity) {
+        cache = new QueryCache(capacity);
+    }
+
+    private <R> R cached(String query, Object argument, Collection<Student> students, Supplier<R> compute) {
+        if (students instanceof Versioned) {
+            return cache.get(query, argument, (Versioned) students, compute);
+        }
+        return compute.get();
+    }
+
+    @Override
+    public List<String> getFirstNames(List<Student> students) {
+        return cached("getFirstNames", null, students,
+                () -> Collections.unmodifiableList(super.getFirstNames(students)));
+    }
+
+    @Override
+    public List<String> getLastNames(List<Student> students) {
+        return cached("getLastNames", null, students,
+                () -> Collections.unmodifiableList(super.getLastNames(students)));
+    }
+
+    @Override
+    public List<String> getGroups(List<Student> students) {
+        return cached("getGroups", null, students,
+                () -> Collections.unmodifiableList(super.getGroups(students)));
+    }
+
+    @Override
+    public List<String> getFullNames(List<Student> students) {
+        return cached("getFullNames", null, students,
+                () -> Collections.unmodifiableList(super.getFullNames(students)));
+    }
+
+    @Override
+    public Set<String> getDistinctFirstNames(List<Student> students) {
+        return cached("getDistinctFirstNames", null, students,
+                () -> Collections.unmodifiableSet(super.getDistinctFirstNames(students)));
+    }
+
+    @Override
+    public List<Student> findStudentsByFirstName(Collection<Student> students, String name) {
+        return cached("findStudentsByFirstName", name, students,
+                () -> Collections.unmodifiableList(super.findStudentsByFirstName(students, name)));
+    }
+
+    @Override
+    public List<Student> findStudentsByLastName(Collection<Student> students, String name) {
+        return cached("findStudentsByLastName", name, students,
+                () -> Collections.unmodifiableList(super.findStudentsByLastName(students, name)));
+    }
+
+    @Override
+    public List<Student> findStudentsByGroup(Collection<Student> students, String group) {
+        return cached("findStudentsByGroup", group, students,
+                () -> Collections.unmodifiableList(super.findStudentsByGroup(students, group)));
+    }
+
+    @Override
+    public Map<String, String> findStudentNamesByGroup(Collection<Student> students, String group) {
+        return cached("findStudentNamesByGroup", group, students,
+                () -> Collections.unmodifiableMap(super.findStudentNamesByGroup(students, group)));
+    }
+
+    public long getHitCount() {
+        return cache.hits();
+    }
+
+    public long getMissCount() {
+        return cache.misses();
+    }
+
+    /**
+     * Returns ratio of cache hits to all cacheable queries or {@code 0} if there were no such queries.
+     */
+    public double getHitRate() {
+        return cache.hitRate();
+    }
+
+    public void clearCache() {
+        cache.clear();
+    }
+}
@@ -0,0 +1,134 @@
+package ru.ifmo.rain.abubakirov.student;
+
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of query results over {@link Versioned} rosters.
+ * Entries are keyed by query name, argument, roster identity and roster version.
+ * When roster version changes, all its entries computed for older versions are dropped.
+ */
+class QueryCache {
+    private final int capacity;
+    private final Map<Key, Object> entries;
+    private final Map<Versioned, RosterState> rosters = new IdentityHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    QueryCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Cache capacity should be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                if (size() > QueryCache.this.capacity) {
+                    release(eldest.getKey().roster);
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    <R> R get(String query, Object argument, Versioned roster, Supplier<R> compute) {
+        long version = roster.version();
+        Key key = new Key(query, argument, roster, version);
+        synchronized (this) {
+            invalidate(roster, version);
+            Object result = entries.get(key);
+            if (result != null) {
+                hits.increment();
+                return (R) result;
+            }
+        }
+        misses.increment();
+        R result = compute.get();
+        synchronized (this) {
+            if (roster.version() == version && !entries.containsKey(key)) {
+                invalidate(roster, version);
+                rosters.computeIfAbsent(roster, r -> new RosterState(version)).entries++;
+                entries.put(key, result);
+            }
+        }
+        return result;
+    }
+
+    private void invalidate(Versioned roster, long version) {
+        RosterState state = rosters.get(roster);
+        if (state != null && state.version != version) {
+            entries.keySet().removeIf(key -> key.roster == roster);
+            rosters.remove(roster);
+        }
+    }
+
+    private void release(Versioned roster) {
+        RosterState state = rosters.get(roster);
+        if (--state.entries == 0) {
+            rosters.remove(roster);
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        rosters.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    long hits() {
+        return hits.sum();
+    }
+
+    long misses() {
+        return misses.sum();
+    }
+
+    double hitRate() {
+        long hits = hits(), total = hits + misses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private static class RosterState {
+        private final long version;
+        private int entries;
+
+        RosterState(long version) {
+            this.version = version;
+        }
+    }
+
+    private static class Key {
+        private final String query;
+        private final Object argument;
+        private final Versioned roster;
+        private final long version;
+
+        Key(String query, Object argument, Versioned roster, long version) {
+            this.query = query;
+            this.argument = argument;
+            this.roster = roster;
+            this.version = version;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Key) {
+                Key that = (Key) obj;
+                return roster == that.roster && version == that.version
+                        && query.equals(that.query) && Objects.equals(argument, that.argument);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(query, argument, System.identityHashCode(roster), version);
+        }
+    }
+}
@@ -11,7 +11,7 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class StudentDB implements StudentQuery {
-    private static final Comparator<Student> nameComparator = Comparator.comparing(Student::getLastName)
+    static final Comparator<Student> nameComparator = Comparator.comparing(Student::getLastName)
             .thenComparing(Student::getFirstName)
             .thenComparing(Student::getId);
 
@@ -43,6 +43,9 @@ public class StudentDB implements StudentQuery {
 
     @Override
     public List<String> getFullNames(List<Student> students) {
+        if (students instanceof StudentSnapshot) {
+            return new ArrayList<>(((StudentSnapshot) students).fullNames());
+        }
         return getMappedList(students, student -> student.getFirstName() + " " + student.getLastName());
     }
 
@@ -70,11 +73,17 @@ public class StudentDB implements StudentQuery {
 
     @Override
     public List<Student> sortStudentsById(Collection<Student> students) {
+        if (students instanceof StudentSnapshot) {
+            return new ArrayList<>(((StudentSnapshot) students).sortedById());
+        }
         return getSortedList(students, Student::compareTo);
     }
 
     @Override
     public List<Student> sortStudentsByName(Collection<Student> students) {
+        if (students instanceof StudentSnapshot) {
+            return new ArrayList<>(((StudentSnapshot) students).sortedByName());
+        }
         return getSortedList(students, nameComparator);
     }
 
@@ -110,4 +119,14 @@ public class StudentDB implements StudentQuery {
         return getFilteredStream(students, student -> student.getGroup().equals(group))
                 .collect(Collectors.toMap(Student::getLastName, Student::getFirstName, BinaryOperator.minBy(String::compareTo)));
     }
+
+    /**
+     * Starts composable query over given students.
+     *
+     * @param students students to query.
+     * @return new {@link StudentQueryBuilder}.
+     */
+    public StudentQueryBuilder query(Collection<Student> students) {
+        return new StudentQueryBuilder(students);
+    }
 }
@@ -0,0 +1,147 @@
+package ru.ifmo.rain.abubakirov.student;
+
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes student names and groups line by line without building intermediate strings.
+ * Channel output reuses encoder buffers, so instances are not thread-safe.
+ */
+public class StudentExporter {
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * Exported student field.
+     */
+    public enum Field {
+        FIRST_NAME, LAST_NAME, GROUP, FULL_NAME
+    }
+
+    private final CharsetEncoder encoder;
+    private final CharBuffer chars;
+    private final ByteBuffer bytes;
+
+    public StudentExporter() {
+        this(StandardCharsets.UTF_8, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param charset    charset of channel output.
+     * @param bufferSize size of reusable buffers in chars, at least 2 to hold a surrogate pair.
+     * @throws IllegalArgumentException if buffer size is less than 2.
+     */
+    public StudentExporter(Charset charset, int bufferSize) {
+        if (bufferSize < 2) {
+            throw new IllegalArgumentException("Buffer size should be at least 2: " + bufferSize);
+        }
+        encoder = charset.newEncoder();
+        chars = CharBuffer.allocate(bufferSize);
+        bytes = ByteBuffer.allocate((int) Math.ceil(bufferSize * (double) encoder.maxBytesPerChar()));
+    }
+
+    /**
+     * Appends given field of every student followed by line feed.
+     *
+     * @throws IOException if appendable fails.
+     */
+    public void export(Iterable<Student> students, Field field, Appendable out) throws IOException {
+        for (Student student : students) {
+            switch (field) {
+                case FIRST_NAME:
+                    out.append(student.getFirstName());
+                    break;
+                case LAST_NAME:
+                    out.append(student.getLastName());
+                    break;
+                case GROUP:
+                    out.append(student.getGroup());
+                    break;
+                case FULL_NAME:
+                    out.append(student.getFirstName()).append(' ').append(student.getLastName());
+                    break;
+            }
+            out.append('\n');
+        }
+    }
+
+    /**
+     * Writes given field of every student followed by line feed to channel.
+     *
+     * @throws IOException if channel fails or field can't be encoded.
+     */
+    public void export(Iterable<Student> students, Field field, WritableByteChannel out) throws IOException {
+        encoder.reset();
+        chars.clear();
+        bytes.clear();
+        Appendable sink = new Appendable() {
+            @Override
+            public Appendable append(CharSequence csq) throws IOException {
+                return append(csq, 0, csq.length());
+            }
+
+            @Override
+            public Appendable append(CharSequence csq, int start, int end) throws IOException {
+                while (start < end) {
+                    if (!chars.hasRemaining()) {
+                        drain(out, false);
+                    }
+                    int length = Math.min(end - start, chars.remaining());
+                    chars.append(csq, start, start + length);
+                    start += length;
+                }
+                return this;
+            }
+
+            @Override
+            public Appendable append(char c) throws IOException {
+                if (!chars.hasRemaining()) {
+                    drain(out, false);
+                }
+                chars.put(c);
+                return this;
+            }
+        };
+        export(students, field, sink);
+        drain(out, true);
+    }
+
+    private void drain(WritableByteChannel out, boolean endOfInput) throws IOException {
+        chars.flip();
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, endOfInput);
+            if (result.isError()) {
+                chars.clear();
+                throw new CharacterCodingException();
+            }
+            if (result.isOverflow()) {
+                flush(out);
+            } else {
+                break;
+            }
+        }
+        if (endOfInput) {
+            while (encoder.flush(bytes).isOverflow()) {
+                flush(out);
+            }
+        }
+        flush(out);
+        chars.compact();
+    }
+
+    private void flush(WritableByteChannel out) throws IOException {
+        bytes.flip();
+        while (bytes.hasRemaining()) {
+            out.write(bytes);
+        }
+        bytes.clear();
+    }
+}
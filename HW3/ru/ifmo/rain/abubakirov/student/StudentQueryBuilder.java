@@ -0,0 +1,212 @@
+package ru.ifmo.rain.abubakirov.student;
+
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Fluent query over a collection of students, created by {@link StudentDB#query(Collection)}.
+ * All filters are fused into a single pass. Group filter over {@link StudentRepository#students()}
+ * scans only the group's students, and ordering by id or by name over {@link StudentSnapshot}
+ * walks its stored permutation and stops as soon as limit is reached.
+ */
+public class StudentQueryBuilder {
+    private static final Comparator<Student> ID_ORDER = Student::compareTo;
+
+    private final Collection<Student> students;
+    private String group;
+    private String firstName;
+    private String lastName;
+    private final List<Predicate<? super Student>> predicates = new ArrayList<>();
+    private Comparator<? super Student> order;
+    private int limit = Integer.MAX_VALUE;
+
+    StudentQueryBuilder(Collection<Student> students) {
+        this.students = Objects.requireNonNull(students);
+    }
+
+    public StudentQueryBuilder inGroup(String group) {
+        this.group = Objects.requireNonNull(group);
+        return this;
+    }
+
+    public StudentQueryBuilder withFirstName(String firstName) {
+        this.firstName = Objects.requireNonNull(firstName);
+        return this;
+    }
+
+    public StudentQueryBuilder withLastName(String lastName) {
+        this.lastName = Objects.requireNonNull(lastName);
+        return this;
+    }
+
+    public StudentQueryBuilder where(Predicate<? super Student> predicate) {
+        predicates.add(Objects.requireNonNull(predicate));
+        return this;
+    }
+
+    public StudentQueryBuilder orderById() {
+        order = ID_ORDER;
+        return this;
+    }
+
+    /**
+     * Orders students as {@link StudentDB#sortStudentsByName(Collection)} does.
+     */
+    public StudentQueryBuilder orderByName() {
+        order = StudentDB.nameComparator;
+        return this;
+    }
+
+    public StudentQueryBuilder orderBy(Comparator<? super Student> comparator) {
+        order = Objects.requireNonNull(comparator);
+        return this;
+    }
+
+    public StudentQueryBuilder limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit should be non-negative");
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Executes query.
+     *
+     * @return list of matching students.
+     */
+    public List<Student> list() {
+        return map(Function.identity());
+    }
+
+    /**
+     * Executes query and projects every matching student.
+     *
+     * @param projection function applied to matching students only.
+     * @return list of projected values.
+     */
+    public <R> List<R> map(Function<? super Student, ? extends R> projection) {
+        Predicate<Student> filter = filter();
+        if (order != null && !isPresorted()) {
+            List<Student> selected = limit == Integer.MAX_VALUE ? sorted(filter) : top(filter);
+            List<R> result = new ArrayList<>(selected.size());
+            for (Student student : selected) {
+                result.add(projection.apply(student));
+            }
+            return result;
+        }
+        List<R> result = new ArrayList<>();
+        for (Student student : source()) {
+            if (result.size() == limit) {
+                break;
+            }
+            if (filter.test(student)) {
+                result.add(projection.apply(student));
+            }
+        }
+        return result;
+    }
+
+    public int count() {
+        Predicate<Student> filter = filter();
+        int count = 0;
+        for (Student student : source()) {
+            if (count == limit) {
+                break;
+            }
+            if (filter.test(student)) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    private boolean isPresorted() {
+        return students instanceof StudentSnapshot && (order == ID_ORDER || order == StudentDB.nameComparator);
+    }
+
+    private Collection<Student> source() {
+        if (isPresorted()) {
+            StudentSnapshot snapshot = (StudentSnapshot) students;
+            return order == ID_ORDER ? snapshot.sortedById() : snapshot.sortedByName();
+        }
+        if (group != null && students instanceof StudentRepository.View) {
+            return ((StudentRepository.View) students).repository().getGroupStudents(group);
+        }
+        return students;
+    }
+
+    private Predicate<Student> filter() {
+        String group = this.group, firstName = this.firstName, lastName = this.lastName;
+        List<Predicate<? super Student>> predicates = List.copyOf(this.predicates);
+        return student -> {
+            if (group != null && !group.equals(student.getGroup())
+                    || firstName != null && !firstName.equals(student.getFirstName())
+                    || lastName != null && !lastName.equals(student.getLastName())) {
+                return false;
+            }
+            for (Predicate<? super Student> predicate : predicates) {
+                if (!predicate.test(student)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    private List<Student> sorted(Predicate<Student> filter) {
+        List<Student> result = new ArrayList<>();
+        for (Student student : source()) {
+            if (filter.test(student)) {
+                result.add(student);
+            }
+        }
+        result.sort(order);
+        return result;
+    }
+
+    /**
+     * Selects first {@link #limit} students in order, equal ones being taken in encounter order,
+     * so result is a prefix of {@link #sorted(Predicate)}.
+     */
+    private List<Student> top(Predicate<Student> filter) {
+        if (limit == 0) {
+            return new ArrayList<>();
+        }
+        Comparator<Ranked> ranking = Comparator.<Ranked, Student>comparing(ranked -> ranked.student, order)
+                .thenComparingInt(ranked -> ranked.index);
+        PriorityQueue<Ranked> heap = new PriorityQueue<>(ranking.reversed());
+        int index = 0;
+        for (Student student : source()) {
+            if (filter.test(student)) {
+                if (heap.size() < limit) {
+                    heap.add(new Ranked(student, index));
+                } else if (order.compare(student, heap.peek().student) < 0) {
+                    heap.poll();
+                    heap.add(new Ranked(student, index));
+                }
+                ++index;
+            }
+        }
+        List<Ranked> ranked = new ArrayList<>(heap);
+        ranked.sort(ranking);
+        List<Student> result = new ArrayList<>(ranked.size());
+        for (Ranked student : ranked) {
+            result.add(student.student);
+        }
+        return result;
+    }
+
+    private static class Ranked {
+        final Student student;
+        final int index;
+
+        Ranked(Student student, int index) {
+            this.student = student;
+            this.index = index;
+        }
+    }
+}
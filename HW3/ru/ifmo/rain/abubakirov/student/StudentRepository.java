@@ -0,0 +1,253 @@
+package ru.ifmo.rain.abubakirov.student;
+
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.util.*;
+
+/**
+ * Mutable roster of students, which keeps group sizes, first name frequencies
+ * and per-group last name to minimal first name maps up to date on every change,
+ * so aggregate queries are answered without scanning the roster.
+ */
+public class StudentRepository {
+    /**
+     * Receives roster change events.
+     */
+    public interface Listener {
+        default void onAdd(Student student) {
+        }
+
+        default void onRemove(Student student) {
+        }
+
+        default void onUpdate(Student oldStudent, Student newStudent) {
+        }
+    }
+
+    private final Map<Integer, Student> students = new HashMap<>();
+    private final Map<String, Integer> groupSizes = new HashMap<>();
+    private final NavigableSet<String> groupsBySize = new TreeSet<>(
+            Comparator.<String>comparingInt(groupSizes::get).reversed().thenComparing(Comparator.naturalOrder()));
+    private final Map<String, Integer> firstNameCounts = new HashMap<>();
+    private final Map<String, Map<String, TreeMap<String, Integer>>> groupNameCounts = new HashMap<>();
+    private final Map<String, Map<String, String>> groupNames = new HashMap<>();
+    private final Map<String, Map<Integer, Student>> groupStudents = new HashMap<>();
+    private final List<Listener> listeners = new ArrayList<>();
+    private final View view = new View();
+    private long version;
+
+    public StudentRepository() {
+        version = 0;
+    }
+
+    public StudentRepository(Collection<Student> students) {
+        this();
+        students.forEach(this::add);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(Objects.requireNonNull(listener));
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Adds student to the roster.
+     *
+     * @param student student to add.
+     * @throws IllegalArgumentException if student with the same id is already present.
+     */
+    public void add(Student student) {
+        if (students.putIfAbsent(student.getId(), student) != null) {
+            throw new IllegalArgumentException("Student with id " + student.getId() + " already exists");
+        }
+        index(student);
+        ++version;
+        listeners.forEach(listener -> listener.onAdd(student));
+    }
+
+    /**
+     * Removes student with given id from the roster.
+     *
+     * @param id id of student to remove.
+     * @return removed student or {@code null} if there was no such student.
+     */
+    public Student remove(int id) {
+        Student student = students.remove(id);
+        if (student != null) {
+            unindex(student);
+            ++version;
+            listeners.forEach(listener -> listener.onRemove(student));
+        }
+        return student;
+    }
+
+    /**
+     * Replaces student having the same id with given one.
+     *
+     * @param student new student data.
+     * @return previous student data.
+     * @throws NoSuchElementException if there is no student with such id.
+     */
+    public Student update(Student student) {
+        Student old = students.get(student.getId());
+        if (old == null) {
+            throw new NoSuchElementException("No student with id " + student.getId());
+        }
+        students.put(student.getId(), student);
+        unindex(old);
+        index(student);
+        ++version;
+        listeners.forEach(listener -> listener.onUpdate(old, student));
+        return old;
+    }
+
+    public Student get(int id) {
+        return students.get(id);
+    }
+
+    public int size() {
+        return students.size();
+    }
+
+    /**
+     * Returns number of changes applied to the roster so far.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Returns unmodifiable live view of the roster, suitable for {@link StudentDB} queries.
+     * View is {@link Versioned} with the version of the repository.
+     */
+    public Collection<Student> students() {
+        return view;
+    }
+
+    public Set<String> getGroups() {
+        return Collections.unmodifiableSet(groupSizes.keySet());
+    }
+
+    /**
+     * Returns unmodifiable live view of students of the given group.
+     */
+    public Collection<Student> getGroupStudents(String group) {
+        return Collections.unmodifiableCollection(groupStudents.getOrDefault(group, Collections.emptyMap()).values());
+    }
+
+    public int getGroupSize(String group) {
+        return groupSizes.getOrDefault(group, 0);
+    }
+
+    /**
+     * Returns name of the group containing maximum number of students.
+     * If there are more than one largest group, the one with smallest name is returned.
+     *
+     * @return name of the largest group or empty string if roster is empty.
+     */
+    public String getLargestGroup() {
+        return groupsBySize.isEmpty() ? "" : groupsBySize.first();
+    }
+
+    public int getFirstNameCount(String firstName) {
+        return firstNameCounts.getOrDefault(firstName, 0);
+    }
+
+    /**
+     * Returns unmodifiable live view of the first name frequency table.
+     */
+    public Map<String, Integer> getFirstNameCounts() {
+        return Collections.unmodifiableMap(firstNameCounts);
+    }
+
+    /**
+     * Same as {@link StudentDB#findStudentNamesByGroup(Collection, String)} over the whole roster.
+     *
+     * @return unmodifiable live view of group's student last names mapped to minimal first name.
+     */
+    public Map<String, String> findStudentNamesByGroup(String group) {
+        return Collections.unmodifiableMap(groupNames.getOrDefault(group, Collections.emptyMap()));
+    }
+
+    private void index(Student student) {
+        String group = student.getGroup();
+        Integer size = groupSizes.get(group);
+        if (size != null) {
+            groupsBySize.remove(group);
+        }
+        groupSizes.put(group, size == null ? 1 : size + 1);
+        groupsBySize.add(group);
+
+        groupStudents.computeIfAbsent(group, g -> new HashMap<>()).put(student.getId(), student);
+        firstNameCounts.merge(student.getFirstName(), 1, Integer::sum);
+
+        TreeMap<String, Integer> firstNames = groupNameCounts
+                .computeIfAbsent(group, g -> new HashMap<>())
+                .computeIfAbsent(student.getLastName(), n -> new TreeMap<>());
+        firstNames.merge(student.getFirstName(), 1, Integer::sum);
+        groupNames.computeIfAbsent(group, g -> new HashMap<>())
+                .put(student.getLastName(), firstNames.firstKey());
+    }
+
+    private void unindex(Student student) {
+        String group = student.getGroup();
+        groupsBySize.remove(group);
+        int size = groupSizes.get(group) - 1;
+        if (size == 0) {
+            groupSizes.remove(group);
+        } else {
+            groupSizes.put(group, size);
+            groupsBySize.add(group);
+        }
+
+        Map<Integer, Student> members = groupStudents.get(group);
+        members.remove(student.getId());
+        if (members.isEmpty()) {
+            groupStudents.remove(group);
+        }
+        decrement(firstNameCounts, student.getFirstName());
+
+        Map<String, TreeMap<String, Integer>> lastNames = groupNameCounts.get(group);
+        Map<String, String> names = groupNames.get(group);
+        TreeMap<String, Integer> firstNames = lastNames.get(student.getLastName());
+        decrement(firstNames, student.getFirstName());
+        if (!firstNames.isEmpty()) {
+            names.put(student.getLastName(), firstNames.firstKey());
+        } else {
+            lastNames.remove(student.getLastName());
+            names.remove(student.getLastName());
+            if (lastNames.isEmpty()) {
+                groupNameCounts.remove(group);
+                groupNames.remove(group);
+            }
+        }
+    }
+
+    private static void decrement(Map<String, Integer> counts, String key) {
+        counts.computeIfPresent(key, (k, count) -> count == 1 ? null : count - 1);
+    }
+
+    class View extends AbstractCollection<Student> implements Versioned {
+        StudentRepository repository() {
+            return StudentRepository.this;
+        }
+
+        @Override
+        public Iterator<Student> iterator() {
+            return Collections.unmodifiableCollection(students.values()).iterator();
+        }
+
+        @Override
+        public int size() {
+            return students.size();
+        }
+
+        @Override
+        public long version() {
+            return version;
+        }
+    }
+}
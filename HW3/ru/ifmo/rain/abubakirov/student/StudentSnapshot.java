@@ -0,0 +1,298 @@
+package ru.ifmo.rain.abubakirov.student;
+
+import info.kgeorgiy.java.advanced.student.Student;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Immutable list of students stored column-wise over a pool of distinct strings.
+ * Snapshot keeps permutations sorting students by id and by name,
+ * so {@link StudentDB} returns sorted views of it without sorting.
+ * <p>
+ * Binary format (big-endian): magic, student count, pool size,
+ * pool strings as UTF-8 bytes prefixed with length, then id, first name, last name
+ * and group columns followed by by-id and by-name permutations, each column being
+ * an array of {@code int} values of student count length.
+ */
+public class StudentSnapshot extends AbstractList<Student> implements RandomAccess, Versioned {
+    private static final int MAGIC = 0x53544442;
+    private static final int COLUMNS = 6;
+
+    private final String[] pool;
+    private final IntBuffer ids;
+    private final IntBuffer firstNames;
+    private final IntBuffer lastNames;
+    private final IntBuffer groups;
+    private final IntBuffer byId;
+    private final IntBuffer byName;
+    private final Student[] students;
+    private String[] fullNames;
+
+    private StudentSnapshot(String[] pool, IntBuffer ids, IntBuffer firstNames, IntBuffer lastNames,
+                            IntBuffer groups, IntBuffer byId, IntBuffer byName) {
+        this.pool = pool;
+        this.ids = ids;
+        this.firstNames = firstNames;
+        this.lastNames = lastNames;
+        this.groups = groups;
+        this.byId = byId;
+        this.byName = byName;
+        this.students = new Student[ids.limit()];
+    }
+
+    /**
+     * Builds snapshot of given students, preserving their iteration order.
+     */
+    public static StudentSnapshot of(Collection<Student> students) {
+        int size = students.size();
+        Map<String, Integer> indices = new HashMap<>();
+        List<String> pool = new ArrayList<>();
+        int[] ids = new int[size], firstNames = new int[size], lastNames = new int[size], groups = new int[size];
+        Student[] data = students.toArray(new Student[0]);
+        for (int i = 0; i < size; ++i) {
+            ids[i] = data[i].getId();
+            firstNames[i] = intern(indices, pool, data[i].getFirstName());
+            lastNames[i] = intern(indices, pool, data[i].getLastName());
+            groups[i] = intern(indices, pool, data[i].getGroup());
+        }
+        StudentSnapshot snapshot = new StudentSnapshot(pool.toArray(new String[0]),
+                IntBuffer.wrap(ids), IntBuffer.wrap(firstNames), IntBuffer.wrap(lastNames), IntBuffer.wrap(groups),
+                permutation(data, Student::compareTo), permutation(data, StudentDB.nameComparator));
+        System.arraycopy(data, 0, snapshot.students, 0, size);
+        return snapshot;
+    }
+
+    private static int intern(Map<String, Integer> indices, List<String> pool, String value) {
+        return indices.computeIfAbsent(value, v -> {
+            pool.add(v);
+            return pool.size() - 1;
+        });
+    }
+
+    private static IntBuffer permutation(Student[] data, Comparator<Student> comparator) {
+        Integer[] order = new Integer[data.length];
+        Arrays.setAll(order, i -> i);
+        Arrays.sort(order, (a, b) -> comparator.compare(data[a], data[b]));
+        int[] result = new int[data.length];
+        Arrays.setAll(result, i -> order[i]);
+        return IntBuffer.wrap(result);
+    }
+
+    /**
+     * Reads snapshot from file.
+     *
+     * @param file   snapshot file.
+     * @param mapped whether columns should be memory-mapped rather than read into heap.
+     * @throws IOException if file can't be read or has wrong format.
+     */
+    public static StudentSnapshot read(Path file, boolean mapped) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Student snapshot is too large: " + file);
+            }
+            ByteBuffer buffer;
+            if (mapped) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } else {
+                buffer = ByteBuffer.allocate((int) channel.size());
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        throw new IOException("Unexpected end of snapshot " + file);
+                    }
+                }
+                buffer.flip();
+            }
+            return parse(buffer);
+        }
+    }
+
+    private static StudentSnapshot parse(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 3 * Integer.BYTES || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a student snapshot");
+        }
+        int size = buffer.getInt();
+        int poolSize = buffer.getInt();
+        if (size < 0 || poolSize < 0 || poolSize > buffer.remaining() / Integer.BYTES) {
+            throw corrupted("wrong student count or pool size");
+        }
+        String[] pool = new String[poolSize];
+        for (int i = 0; i < pool.length; ++i) {
+            int length = buffer.remaining() < Integer.BYTES ? -1 : buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw corrupted("wrong length of pool string " + i);
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            pool[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        if (buffer.remaining() != (long) COLUMNS * size * Integer.BYTES) {
+            throw corrupted("wrong length of columns");
+        }
+        IntBuffer[] columns = new IntBuffer[COLUMNS];
+        for (int i = 0; i < COLUMNS; ++i) {
+            columns[i] = buffer.slice().limit(size * Integer.BYTES).asIntBuffer();
+            buffer.position(buffer.position() + size * Integer.BYTES);
+        }
+        for (int i = 1; i <= 3; ++i) {
+            checkIndices(columns[i], pool.length);
+        }
+        checkPermutation(columns[4]);
+        checkPermutation(columns[5]);
+        return new StudentSnapshot(pool, columns[0], columns[1], columns[2], columns[3], columns[4], columns[5]);
+    }
+
+    private static void checkIndices(IntBuffer column, int bound) throws IOException {
+        for (int i = 0; i < column.limit(); ++i) {
+            if (column.get(i) < 0 || column.get(i) >= bound) {
+                throw corrupted("pool index out of range: " + column.get(i));
+            }
+        }
+    }
+
+    private static void checkPermutation(IntBuffer column) throws IOException {
+        checkIndices(column, column.limit());
+        BitSet seen = new BitSet(column.limit());
+        for (int i = 0; i < column.limit(); ++i) {
+            if (seen.get(column.get(i))) {
+                throw corrupted("repeated permutation entry: " + column.get(i));
+            }
+            seen.set(column.get(i));
+        }
+    }
+
+    private static IOException corrupted(String reason) {
+        return new IOException("Corrupted student snapshot: " + reason);
+    }
+
+    /**
+     * Writes snapshot to file, replacing its contents.
+     *
+     * @param file target file.
+     * @throws IOException if file can't be written.
+     */
+    public void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            byte[][] encoded = new byte[pool.length][];
+            int poolBytes = 0;
+            for (int i = 0; i < pool.length; ++i) {
+                encoded[i] = pool[i].getBytes(StandardCharsets.UTF_8);
+                poolBytes += Integer.BYTES + encoded[i].length;
+            }
+            ByteBuffer header = ByteBuffer.allocate(3 * Integer.BYTES + poolBytes);
+            header.putInt(MAGIC).putInt(size()).putInt(pool.length);
+            for (byte[] bytes : encoded) {
+                header.putInt(bytes.length).put(bytes);
+            }
+            writeFully(channel, header.flip());
+
+            ByteBuffer column = ByteBuffer.allocate(size() * Integer.BYTES);
+            for (IntBuffer values : List.of(ids, firstNames, lastNames, groups, byId, byName)) {
+                column.clear();
+                column.asIntBuffer().put(values.duplicate().rewind());
+                writeFully(channel, column);
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    @Override
+    public Student get(int index) {
+        Student student = students[index];
+        if (student == null) {
+            student = new Student(ids.get(index), pool[firstNames.get(index)],
+                    pool[lastNames.get(index)], pool[groups.get(index)]);
+            students[index] = student;
+        }
+        return student;
+    }
+
+    /**
+     * Returns full name of the student with given index. Full names are built once and cached.
+     */
+    public String getFullName(int index) {
+        if (fullNames == null) {
+            fullNames = new String[size()];
+        }
+        String fullName = fullNames[index];
+        if (fullName == null) {
+            fullName = pool[firstNames.get(index)] + " " + pool[lastNames.get(index)];
+            fullNames[index] = fullName;
+        }
+        return fullName;
+    }
+
+    /**
+     * Returns unmodifiable view of cached {@link #getFullName(int) full names}.
+     */
+    public List<String> fullNames() {
+        return new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return getFullName(index);
+            }
+
+            @Override
+            public int size() {
+                return StudentSnapshot.this.size();
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return students.length;
+    }
+
+    /**
+     * Snapshots are immutable, so version never changes.
+     */
+    @Override
+    public long version() {
+        return 0;
+    }
+
+    /**
+     * Returns unmodifiable view of students ordered by {@link Student#getId() id}.
+     */
+    public List<Student> sortedById() {
+        return new Permuted(byId);
+    }
+
+    /**
+     * Returns unmodifiable view of students ordered as in {@link StudentDB#sortStudentsByName(Collection)}.
+     */
+    public List<Student> sortedByName() {
+        return new Permuted(byName);
+    }
+
+    private class Permuted extends AbstractList<Student> implements RandomAccess {
+        private final IntBuffer order;
+
+        Permuted(IntBuffer order) {
+            this.order = order;
+        }
+
+        @Override
+        public Student get(int index) {
+            return StudentSnapshot.this.get(order.get(index));
+        }
+
+        @Override
+        public int size() {
+            return order.limit();
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package ru.ifmo.rain.abubakirov.student;
+
+/**
+ * Collection of students, which reports its modification version.
+ * Two calls returning the same version guarantee that collection contents have not changed between them.
+ */
+public interface Versioned {
+    long version();
+}
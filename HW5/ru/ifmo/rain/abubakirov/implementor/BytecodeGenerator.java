@@ -0,0 +1,403 @@
+package ru.ifmo.rain.abubakirov.implementor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generator of class files implementing classes and interfaces without compilation.
+ * Generated methods return default values of their return types,
+ * generated constructors pass all their arguments to super constructors.
+ */
+class BytecodeGenerator {
+    /**
+     * Class file magic number.
+     */
+    private static final int MAGIC = 0xCAFEBABE;
+    /**
+     * Class file major version, Java 8. Generated code has no branches, so no stack map frames are required.
+     */
+    private static final int MAJOR_VERSION = 52;
+
+    /**
+     * Class access flags: {@code ACC_PUBLIC | ACC_SUPER}.
+     */
+    private static final int ACC_PUBLIC_SUPER = 0x0021;
+
+    /**
+     * Constant pool tags.
+     */
+    private static final int CONSTANT_UTF8 = 1, CONSTANT_CLASS = 7, CONSTANT_METHODREF = 10, CONSTANT_NAME_AND_TYPE = 12;
+
+    /**
+     * Opcodes used in generated code.
+     */
+    private static final int ACONST_NULL = 0x01, ICONST_0 = 0x03, LCONST_0 = 0x09, FCONST_0 = 0x0b, DCONST_0 = 0x0e,
+            ILOAD = 0x15, LLOAD = 0x16, FLOAD = 0x17, DLOAD = 0x18, ALOAD = 0x19, ALOAD_0 = 0x2a, IRETURN = 0xac, LRETURN = 0xad, FRETURN = 0xae, DRETURN = 0xaf, ARETURN = 0xb0,
+            RETURN = 0xb1, INVOKESPECIAL = 0xb7, WIDE = 0xc4;
+
+    /**
+     * Constant pool being filled.
+     */
+    private final ConstantPool pool = new ConstantPool();
+
+    /**
+     * Private constructor, use {@link #generate(Class, String)}.
+     */
+    private BytecodeGenerator() {
+    }
+
+    /**
+     * Generate class file implementing class or interface.
+     *
+     * @param token        class or interface to implement.
+     * @param internalName internal name of generated class, using '/' as package separator.
+     * @return bytes of class file.
+     */
+    static byte[] generate(Class<?> token, String internalName) {
+        return new BytecodeGenerator().generateClass(token, internalName);
+    }
+
+    /**
+     * Generate class file implementing class or interface.
+     *
+     * @param token        class or interface to implement.
+     * @param internalName internal name of generated class.
+     * @return bytes of class file.
+     */
+    private byte[] generateClass(Class<?> token, String internalName) {
+        try {
+            String superName = token.isInterface() ? "java/lang/Object" : MemberInfo.getInternalName(token);
+            int thisClass = pool.classInfo(internalName);
+            int superClass = pool.classInfo(superName);
+            int implemented = token.isInterface() ? pool.classInfo(MemberInfo.getInternalName(token)) : 0;
+            int code = pool.utf8("Code");
+            int exceptions = pool.utf8("Exceptions");
+
+            List<byte[]> methods = new ArrayList<>();
+            if (token.isInterface()) {
+                methods.add(constructor(null, superName, code, exceptions));
+            } else {
+                for (MemberInfo constructor : ImplementedMembers.getConstructors(token)) {
+                    methods.add(constructor(constructor, superName, code, exceptions));
+                }
+            }
+            for (MemberInfo method : ImplementedMembers.getAbstractMethods(token)) {
+                methods.add(method(method, code, exceptions));
+            }
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(MAGIC);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            pool.write(out);
+            out.writeShort(ACC_PUBLIC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            if (implemented != 0) {
+                out.writeShort(1);
+                out.writeShort(implemented);
+            } else {
+                out.writeShort(0);
+            }
+            out.writeShort(0);
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0);
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Generate public constructor passing all its arguments to super constructor.
+     *
+     * @param constructor super constructor, or {@code null} for default constructor of {@link Object}.
+     * @param superName   internal name of superclass.
+     * @param code        constant pool index of "Code" attribute name.
+     * @param exceptions  constant pool index of "Exceptions" attribute name.
+     * @return bytes of method_info structure.
+     * @throws IOException never, as data is written to memory.
+     */
+    private byte[] constructor(MemberInfo constructor, String superName, int code, int exceptions)
+            throws IOException {
+        String descriptor = constructor == null ? "()V" : constructor.getDescriptor();
+        int parameters = constructor == null ? 0 : constructor.getParameterCount();
+        int superInit = pool.methodRef(superName, "<init>", descriptor);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(Modifier.PUBLIC);
+        out.writeShort(pool.utf8("<init>"));
+        out.writeShort(pool.utf8(descriptor));
+        out.writeShort(constructor == null || constructor.getExceptionCount() == 0 ? 1 : 2);
+
+        ByteArrayOutputStream bytecode = new ByteArrayOutputStream();
+        bytecode.write(ALOAD_0);
+        int slot = 1;
+        for (int i = 0; i < parameters; ++i) {
+            Class<?> parameter = constructor.getParameterType(i);
+            writeLoad(bytecode, parameter, slot);
+            slot += getSlots(parameter);
+        }
+        bytecode.write(INVOKESPECIAL);
+        bytecode.write(superInit >> 8);
+        bytecode.write(superInit);
+        bytecode.write(RETURN);
+        writeCode(out, code, slot, slot, bytecode.toByteArray());
+        if (constructor != null) {
+            writeExceptions(out, exceptions, constructor);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Write instruction loading local variable.
+     *
+     * @param bytecode output.
+     * @param type     variable type.
+     * @param slot     variable slot.
+     */
+    private static void writeLoad(ByteArrayOutputStream bytecode, Class<?> type, int slot) {
+        int opcode;
+        if (type == long.class) {
+            opcode = LLOAD;
+        } else if (type == float.class) {
+            opcode = FLOAD;
+        } else if (type == double.class) {
+            opcode = DLOAD;
+        } else if (type.isPrimitive()) {
+            opcode = ILOAD;
+        } else {
+            opcode = ALOAD;
+        }
+        if (slot > 0xff) {
+            bytecode.write(WIDE);
+            bytecode.write(opcode);
+            bytecode.write(slot >> 8);
+        } else {
+            bytecode.write(opcode);
+        }
+        bytecode.write(slot);
+    }
+
+    /**
+     * Generate method returning default value.
+     *
+     * @param method     method to implement.
+     * @param code       constant pool index of "Code" attribute name.
+     * @param exceptions constant pool index of "Exceptions" attribute name.
+     * @return bytes of method_info structure.
+     * @throws IOException never, as data is written to memory.
+     */
+    private byte[] method(MemberInfo method, int code, int exceptions) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(method.getModifiers() & (Modifier.PUBLIC | Modifier.PROTECTED));
+        out.writeShort(pool.utf8(method.getName()));
+        out.writeShort(pool.utf8(method.getDescriptor()));
+        out.writeShort(method.getExceptionCount() == 0 ? 1 : 2);
+
+        Class<?> returnType = method.getReturnType();
+        int locals = 1;
+        for (int i = 0; i < method.getParameterCount(); ++i) {
+            locals += getSlots(method.getParameterType(i));
+        }
+        writeCode(out, code, Math.max(1, getSlots(returnType)), locals, getReturnDefault(returnType));
+        writeExceptions(out, exceptions, method);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Write Exceptions attribute, if there are any exceptions.
+     *
+     * @param out        output.
+     * @param exceptions constant pool index of "Exceptions" attribute name.
+     * @param member     method or constructor declaring exceptions.
+     * @throws IOException never, as data is written to memory.
+     */
+    private void writeExceptions(DataOutputStream out, int exceptions, MemberInfo member) throws IOException {
+        int count = member.getExceptionCount();
+        if (count != 0) {
+            out.writeShort(exceptions);
+            out.writeInt(2 + 2 * count);
+            out.writeShort(count);
+            for (int i = 0; i < count; ++i) {
+                out.writeShort(pool.classInfo(MemberInfo.getInternalName(member.getExceptionType(i))));
+            }
+        }
+    }
+
+    /**
+     * Write Code attribute without exception table and attributes.
+     *
+     * @param out      output.
+     * @param code     constant pool index of "Code" attribute name.
+     * @param maxStack maximal operand stack depth.
+     * @param locals   number of local variable slots.
+     * @param bytecode method instructions.
+     * @throws IOException never, as data is written to memory.
+     */
+    private static void writeCode(DataOutputStream out, int code, int maxStack, int locals, byte[] bytecode)
+            throws IOException {
+        out.writeShort(code);
+        out.writeInt(12 + bytecode.length);
+        out.writeShort(maxStack);
+        out.writeShort(locals);
+        out.writeInt(bytecode.length);
+        out.write(bytecode);
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+
+    /**
+     * Get instructions returning default value of type.
+     *
+     * @param type return type.
+     * @return instructions.
+     */
+    private static byte[] getReturnDefault(Class<?> type) {
+        if (type == void.class) {
+            return new byte[]{(byte) RETURN};
+        } else if (type == long.class) {
+            return new byte[]{LCONST_0, (byte) LRETURN};
+        } else if (type == float.class) {
+            return new byte[]{FCONST_0, (byte) FRETURN};
+        } else if (type == double.class) {
+            return new byte[]{DCONST_0, (byte) DRETURN};
+        } else if (type.isPrimitive()) {
+            return new byte[]{ICONST_0, (byte) IRETURN};
+        } else {
+            return new byte[]{ACONST_NULL, (byte) ARETURN};
+        }
+    }
+
+    /**
+     * Get number of local variable slots occupied by value of type.
+     *
+     * @param type value type.
+     * @return 0 for {@code void}, 2 for {@code long} and {@code double}, 1 otherwise.
+     */
+    private static int getSlots(Class<?> type) {
+        if (type == void.class) {
+            return 0;
+        }
+        return type == long.class || type == double.class ? 2 : 1;
+    }
+
+    /**
+     * Constant pool with deduplication of entries.
+     */
+    private static class ConstantPool {
+        /**
+         * Serialized entries.
+         */
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        /**
+         * Output over {@link #bytes}.
+         */
+        private final DataOutputStream out = new DataOutputStream(bytes);
+        /**
+         * Indices of already added entries.
+         */
+        private final Map<String, Integer> indices = new HashMap<>();
+        /**
+         * Index of next entry.
+         */
+        private int next = 1;
+
+        /**
+         * Add UTF-8 entry.
+         *
+         * @param value string value.
+         * @return entry index.
+         * @throws IOException never, as data is written to memory.
+         */
+        int utf8(String value) throws IOException {
+            Integer index = indices.get("U" + value);
+            if (index == null) {
+                out.writeByte(CONSTANT_UTF8);
+                out.writeUTF(value);
+                index = add("U" + value);
+            }
+            return index;
+        }
+
+        /**
+         * Add class entry.
+         *
+         * @param internalName internal name of class.
+         * @return entry index.
+         * @throws IOException never, as data is written to memory.
+         */
+        int classInfo(String internalName) throws IOException {
+            Integer index = indices.get("C" + internalName);
+            if (index == null) {
+                int name = utf8(internalName);
+                out.writeByte(CONSTANT_CLASS);
+                out.writeShort(name);
+                index = add("C" + internalName);
+            }
+            return index;
+        }
+
+        /**
+         * Add method reference entry.
+         *
+         * @param owner      internal name of class declaring method.
+         * @param name       method name.
+         * @param descriptor method descriptor.
+         * @return entry index.
+         * @throws IOException never, as data is written to memory.
+         */
+        int methodRef(String owner, String name, String descriptor) throws IOException {
+            String key = "M" + owner + "." + name + descriptor;
+            Integer index = indices.get(key);
+            if (index == null) {
+                int ownerIndex = classInfo(owner);
+                int nameIndex = utf8(name);
+                int descriptorIndex = utf8(descriptor);
+                out.writeByte(CONSTANT_NAME_AND_TYPE);
+                out.writeShort(nameIndex);
+                out.writeShort(descriptorIndex);
+                int nameAndType = add("N" + name + descriptor);
+                out.writeByte(CONSTANT_METHODREF);
+                out.writeShort(ownerIndex);
+                out.writeShort(nameAndType);
+                index = add(key);
+            }
+            return index;
+        }
+
+        /**
+         * Register entry which has been just written.
+         *
+         * @param key deduplication key.
+         * @return entry index.
+         */
+        private int add(String key) {
+            indices.put(key, next);
+            return next++;
+        }
+
+        /**
+         * Write constant pool count and entries.
+         *
+         * @param target output.
+         * @throws IOException if output fails.
+         */
+        void write(DataOutputStream target) throws IOException {
+            target.writeShort(next);
+            bytes.writeTo(target);
+        }
+    }
+}
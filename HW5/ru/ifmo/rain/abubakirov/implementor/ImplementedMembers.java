@@ -0,0 +1,154 @@
+package ru.ifmo.rain.abubakirov.implementor;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Collects members, which implementation of class or interface has to declare.
+ * Members are collected once per class and cached in {@link ClassValue}s.
+ */
+class ImplementedMembers {
+    /**
+     * Cache of abstract methods of classes.
+     */
+    private static final ClassValue<List<MemberInfo>> ABSTRACT_METHODS = new ClassValue<>() {
+        @Override
+        protected List<MemberInfo> computeValue(Class<?> token) {
+            return collectAbstractMethods(token);
+        }
+    };
+    /**
+     * Cache of constructors of classes.
+     */
+    private static final ClassValue<List<MemberInfo>> CONSTRUCTORS = new ClassValue<>() {
+        @Override
+        protected List<MemberInfo> computeValue(Class<?> token) {
+            return collectConstructors(token);
+        }
+    };
+
+    /**
+     * Private constructor, class contains only static methods.
+     */
+    private ImplementedMembers() {
+    }
+
+    /**
+     * Get abstract methods, which are not implemented in class or its superclasses.
+     * Superclass chain and superinterfaces are walked once, methods are deduplicated
+     * by name and erased parameter types, so the most specific declaration wins.
+     * Bridge methods of superclasses are concrete, so they mark erased signatures as implemented.
+     *
+     * @param token class or interface.
+     * @return unmodifiable list of abstract methods in order of discovery.
+     * @throws IllegalArgumentException if types of some method can't be resolved by {@link TypeResolver}.
+     */
+    static List<MemberInfo> getAbstractMethods(Class<?> token) {
+        return ABSTRACT_METHODS.get(token);
+    }
+
+    /**
+     * Get constructors, which can be called by implementation class from the same package.
+     *
+     * @param token class.
+     * @return unmodifiable list of non-private constructors, or empty list for interfaces.
+     */
+    static List<MemberInfo> getConstructors(Class<?> token) {
+        return CONSTRUCTORS.get(token);
+    }
+
+    /**
+     * Collect abstract methods for {@link #getAbstractMethods(Class)}.
+     *
+     * @param token class or interface.
+     * @return abstract methods in order of discovery.
+     */
+    private static List<MemberInfo> collectAbstractMethods(Class<?> token) {
+        Map<Signature, Method> methods = new LinkedHashMap<>();
+        for (Class<?> current = token; current != null && !current.isInterface(); current = current.getSuperclass()) {
+            for (Method method : current.getDeclaredMethods()) {
+                int modifiers = method.getModifiers();
+                if (!Modifier.isStatic(modifiers) && !Modifier.isPrivate(modifiers)) {
+                    methods.putIfAbsent(new Signature(method), method);
+                }
+            }
+        }
+        for (Method method : token.getMethods()) {
+            if (method.getDeclaringClass().isInterface() && !Modifier.isStatic(method.getModifiers())) {
+                methods.putIfAbsent(new Signature(method), method);
+            }
+        }
+        TypeResolver resolver = new TypeResolver(token);
+        List<MemberInfo> result = new ArrayList<>();
+        for (Method method : methods.values()) {
+            if (Modifier.isAbstract(method.getModifiers()) && !method.isSynthetic()) {
+                result.add(new MemberInfo(method, resolver));
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Collect constructors for {@link #getConstructors(Class)}.
+     *
+     * @param token class.
+     * @return non-private constructors, or empty list for interfaces.
+     */
+    private static List<MemberInfo> collectConstructors(Class<?> token) {
+        List<MemberInfo> result = new ArrayList<>();
+        if (!token.isInterface()) {
+            TypeResolver resolver = new TypeResolver(token);
+            for (Constructor<?> constructor : token.getDeclaredConstructors()) {
+                if (!Modifier.isPrivate(constructor.getModifiers())) {
+                    result.add(new MemberInfo(constructor, resolver));
+                }
+            }
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Method name with erased parameter types.
+     */
+    private static class Signature {
+        /**
+         * Method name.
+         */
+        private final String name;
+        /**
+         * Erased parameter types.
+         */
+        private final Class<?>[] parameters;
+        /**
+         * Cached hash code.
+         */
+        private final int hash;
+
+        /**
+         * Create signature of method.
+         *
+         * @param method method.
+         */
+        Signature(Method method) {
+            name = method.getName();
+            parameters = method.getParameterTypes();
+            hash = 31 * name.hashCode() + Arrays.hashCode(parameters);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj instanceof Signature) {
+                Signature that = (Signature) obj;
+                return hash == that.hash && name.equals(that.name) && Arrays.equals(parameters, that.parameters);
+            }
+            return false;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
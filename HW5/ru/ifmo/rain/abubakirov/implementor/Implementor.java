@@ -4,56 +4,102 @@ import info.kgeorgiy.java.advanced.implementor.ImplerException;
 import info.kgeorgiy.java.advanced.implementor.JarImpler;
 
 import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
 import javax.tools.ToolProvider;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Method;
+import java.io.Writer;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Modifier;
-import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.nio.file.attribute.FileAttribute;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.jar.Attributes;
+import java.util.jar.JarFile;
 import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
-import java.util.zip.ZipEntry;
+import java.util.stream.Collectors;
 
 /**
  * Implementation class for {@link JarImpler} interface.
  */
 public class Implementor implements JarImpler {
     /**
-     * {@link StringBuilder} variable for saving string representation of code.
+     * Way of producing compiled classes in {@link #implementJar(List, Path)}.
      */
-    private StringBuilder code;
-    /**
-     * Current {@link Class}, which we are implementing.
-     */
-
-    private Class currentClass;
+    public enum Backend {
+        /**
+         * Generate sources and compile them with {@link JavaCompiler}.
+         */
+        SOURCE,
+        /**
+         * Generate class files directly, without {@link JavaCompiler}.
+         */
+        BYTECODE
+    }
 
     /**
-     * {@link SimpleFileVisitor} used for recursive deleting of folders.
+     * Implementations defined by {@link #defineClass(Class)}, cached per implemented class.
      */
-    private static final SimpleFileVisitor<Path> DELETE_VISITOR = new SimpleFileVisitor<>() {
-        @Override
-        public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
-            Files.delete(file);
-            return FileVisitResult.CONTINUE;
-        }
-
+    private static final ClassValue<Class<?>> DEFINED_CLASSES = new ClassValue<>() {
         @Override
-        public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) throws IOException {
-            Files.delete(dir);
-            return FileVisitResult.CONTINUE;
+        protected Class<?> computeValue(Class<?> token) {
+            try {
+                return defineHiddenClass(token);
+            } catch (ImplerException e) {
+                throw new UndeclaredThrowableException(e);
+            }
         }
     };
 
     /**
-     * Default constructor.
+     * Backend used for producing compiled classes.
+     */
+    private final Backend backend;
+    /**
+     * Cache of generated sources and classes, or {@code null} if caching is disabled.
+     */
+    private final ImplementorCache cache;
+
+    /**
+     * Default constructor, uses {@link Backend#SOURCE} backend.
      */
     public Implementor() {
+        this(Backend.SOURCE);
+    }
+
+    /**
+     * Constructor with specified backend for .jar files.
+     *
+     * @param backend backend producing compiled classes.
+     */
+    public Implementor(Backend backend) {
+        this(backend, null);
+    }
 
+    /**
+     * Constructor with specified backend for .jar files and cache of outputs.
+     *
+     * @param backend backend producing compiled classes.
+     * @param cache   cache of generated sources and classes, {@code null} disables caching.
+     */
+    public Implementor(Backend backend, ImplementorCache cache) {
+        this.backend = backend;
+        this.cache = cache;
     }
 
     /**
@@ -67,44 +113,212 @@ public class Implementor implements JarImpler {
      */
     @Override
     public void implementJar(Class<?> token, Path jarFile) throws ImplerException {
-        checkArguments(token, jarFile);
-        createDirectories(jarFile);
+        implementJar(List.of(token), jarFile);
+    }
 
-        Path tmpDir;
-        try {
-            tmpDir = Files.createTempDirectory(jarFile.toAbsolutePath().getParent(), "tmp");
-        } catch (IOException e) {
-            throw new ImplerException("Can't create temporary directory", e);
+    /**
+     * Produces single .jar file implementing all given classes or interfaces.
+     * With {@link Backend#SOURCE} backend all generated sources are compiled in memory
+     * by one {@link JavaCompiler.CompilationTask}, compiled classes are streamed directly into the jar,
+     * so no temporary files are created. With {@link Backend#BYTECODE} backend class files are generated directly.
+     * Implementations are generated in parallel and written in order of their names,
+     * with fixed entry times, so the same tokens always produce the same jar.
+     * If cache is set, only classes missing in it are generated and compiled.
+     *
+     * @param tokens  type tokens to create implementations for.
+     * @param jarFile target .jar file.
+     * @throws ImplerException given classes can't be generated for one of such reasons:
+     *                         <ul>
+     *                         <li> Some arguments are null or can't implement </li>
+     *                         <li> Can't create files or directories. </li>
+     *                         <li> {@link JavaCompiler} failed </li>
+     *                         <li> The problems with I/O occurred during implementation. </li>
+     *                         </ul>
+     */
+    public void implementJar(List<Class<?>> tokens, Path jarFile) throws ImplerException {
+        if (tokens == null) {
+            throw new ImplerException("Not null tokens are required");
         }
+        Set<Class<?>> uniqueTokens = new LinkedHashSet<>();
+        for (Class<?> token : tokens) {
+            checkArguments(token, jarFile);
+            uniqueTokens.add(token);
+        }
+        createDirectories(jarFile);
+
+        List<Class<?>> sortedTokens = new ArrayList<>(uniqueTokens);
+        sortedTokens.sort(Comparator.comparing(Implementor::getImplementedClassBinaryName));
 
         Manifest manifest = new Manifest();
         Attributes attributes = manifest.getMainAttributes();
         attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
 
-        try (JarOutputStream writer = new JarOutputStream(Files.newOutputStream(jarFile), manifest)) {
-            implement(token, tmpDir);
-
-            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
-            String[] args = new String[]{
-                    "-cp",
-                    tmpDir.toString() + File.pathSeparator + System.getProperty("java.class.path"),
-                    getPathToFile(token, tmpDir, ".java").toString()
-            };
-
-            if (compiler.run(null, null, null, args) != 0) {
-                throw new ImplerException("Can't compile generated file");
+        try (JarOutputStream writer = new JarOutputStream(Files.newOutputStream(jarFile))) {
+            writer.putNextEntry(InMemoryFileManager.entry(JarFile.MANIFEST_NAME));
+            manifest.write(writer);
+            writer.closeEntry();
+            if (cache != null) {
+                List<byte[]> classes = getCachedClasses(sortedTokens);
+                for (int i = 0; i < sortedTokens.size(); ++i) {
+                    writeClass(writer, sortedTokens.get(i), classes.get(i));
+                }
+            } else if (backend == Backend.BYTECODE) {
+                List<byte[]> classes = generateParallel(sortedTokens, Implementor::generateBytecode);
+                for (int i = 0; i < sortedTokens.size(); ++i) {
+                    writeClass(writer, sortedTokens.get(i), classes.get(i));
+                }
+            } else {
+                List<JavaFileObject> sources = generateParallel(sortedTokens, Implementor::generateSource);
+                compile(sources, fileManager -> new InMemoryFileManager(fileManager, writer));
             }
-            writer.putNextEntry(new ZipEntry(token.getName().replace('.', '/') + "Impl.class"));
-            Files.copy(getPathToFile(token, tmpDir, ".class"), writer);
         } catch (IOException e) {
             throw new ImplerException("Can't create .jar file", e);
-        } finally {
-            try {
-                clean(tmpDir);
-            } catch (IOException e) {
-                System.err.println("Can't delete temporary directories " + e.getMessage());
+        }
+    }
+
+    /**
+     * Apply generator to all tokens in parallel on {@link ForkJoinPool#commonPool()}.
+     *
+     * @param tokens    classes for implementing.
+     * @param generator stateless generator of implementation.
+     * @param <R>       type of generated implementation.
+     * @return generated implementations in order of tokens.
+     */
+    private static <R> List<R> generateParallel(List<Class<?>> tokens, Function<Class<?>, R> generator) {
+        return tokens.parallelStream().map(generator).collect(Collectors.toList());
+    }
+
+    /**
+     * Get compiled implementations from cache, generating and caching missing ones.
+     *
+     * @param tokens classes for implementing.
+     * @return compiled implementations in order of tokens.
+     * @throws ImplerException if {@link JavaCompiler} failed.
+     * @throws IOException     if error occurs while closing file manager.
+     */
+    private List<byte[]> getCachedClasses(List<Class<?>> tokens) throws ImplerException, IOException {
+        String suffix = "-" + backend.name().toLowerCase() + ".class";
+        List<String> keys = generateParallel(tokens, ImplementorCache::key);
+        List<byte[]> classes = new ArrayList<>();
+        List<Class<?>> missing = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); ++i) {
+            byte[] bytes = cache.get(keys.get(i) + suffix);
+            classes.add(bytes);
+            if (bytes == null) {
+                missing.add(tokens.get(i));
             }
         }
+        if (missing.isEmpty()) {
+            return classes;
+        }
+
+        List<byte[]> generated;
+        if (backend == Backend.BYTECODE) {
+            generated = generateParallel(missing, Implementor::generateBytecode);
+        } else {
+            Map<String, byte[]> compiled = new HashMap<>();
+            compile(generateParallel(missing, token -> InMemoryFileManager.source(
+                    getImplementedClassBinaryName(token), getCachedSource(token))),
+                    fileManager -> new InMemoryFileManager(fileManager, compiled));
+            generated = new ArrayList<>();
+            for (Class<?> token : missing) {
+                generated.add(compiled.get(getImplementedClassBinaryName(token)));
+            }
+        }
+        for (int i = 0, j = 0; i < tokens.size(); ++i) {
+            if (classes.get(i) == null) {
+                classes.set(i, generated.get(j++));
+                cache.put(keys.get(i) + suffix, classes.get(i));
+            }
+        }
+        return classes;
+    }
+
+    /**
+     * Get source of implementation from cache, generating and caching it if it is missing.
+     *
+     * @param token class for implementing.
+     * @return source code of implementation.
+     */
+    private String getCachedSource(Class<?> token) {
+        String name = ImplementorCache.key(token) + ".java";
+        byte[] cached = cache.get(name);
+        if (cached != null) {
+            return new String(cached, StandardCharsets.UTF_8);
+        }
+        String source = generateClass(token).toString();
+        cache.put(name, source.getBytes(StandardCharsets.UTF_8));
+        return source;
+    }
+
+    /**
+     * Generate in-memory source of implementation.
+     *
+     * @param token class for implementing.
+     * @return source file object.
+     */
+    static JavaFileObject generateSource(Class<?> token) {
+        return InMemoryFileManager.source(getImplementedClassBinaryName(token), generateClass(token));
+    }
+
+    /**
+     * Generate class file of implementation by {@link BytecodeGenerator}.
+     *
+     * @param token class for implementing.
+     * @return bytes of class file.
+     */
+    static byte[] generateBytecode(Class<?> token) {
+        return BytecodeGenerator.generate(token, getImplementedClassBinaryName(token).replace('.', '/'));
+    }
+
+    /**
+     * Write compiled implementation as jar entry.
+     *
+     * @param jar   target jar.
+     * @param token implemented class.
+     * @param bytes bytes of class file.
+     * @throws IOException if error occurs while writing.
+     */
+    static void writeClass(JarOutputStream jar, Class<?> token, byte[] bytes) throws IOException {
+        jar.putNextEntry(InMemoryFileManager.entry(InMemoryFileManager.getEntryName(getImplementedClassBinaryName(token))));
+        jar.write(bytes);
+        jar.closeEntry();
+    }
+
+    /**
+     * Compile all given sources by single {@link JavaCompiler} invocation.
+     * Compiled classes are written to file manager created by given factory.
+     *
+     * @param sources     in-memory sources to compile.
+     * @param fileManager factory wrapping standard file manager into one handling compiled classes.
+     * @throws ImplerException if compiler is not available or compilation failed.
+     * @throws IOException     if error occurs while closing file manager.
+     */
+    static void compile(List<JavaFileObject> sources,
+                        Function<StandardJavaFileManager, JavaFileManager> fileManager)
+            throws ImplerException, IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new ImplerException("Java compiler is not available");
+        }
+        List<String> options = List.of("-cp", System.getProperty("java.class.path"));
+        try (JavaFileManager manager = fileManager.apply(compiler.getStandardFileManager(null, null, null))) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, manager, null, options, null, sources);
+            if (!task.call()) {
+                throw new ImplerException("Can't compile generated files");
+            }
+        }
+    }
+
+    /**
+     * Get binary name of implementation class.
+     *
+     * @param token implemented class.
+     * @return binary name of implementation class.
+     */
+    private static String getImplementedClassBinaryName(Class<?> token) {
+        String packageName = getPackageName(token);
+        return (packageName.isEmpty() ? "" : packageName + ".") + getImplementedClassName(token);
     }
 
     /**
@@ -113,7 +327,8 @@ public class Implementor implements JarImpler {
      *                         <li> Some arguments are null or can't implement</li>
      *                         <li> Can't create files or directories. </li>
      *                         <li> The problems with I/O occurred during implementation. </li>
-     *                         <li> Class isn't an Interface </li>
+     *                         <li> Class is final, private, enum, array or primitive </li>
+     *                         <li> Class has only private constructors </li>
      *                         </ul>
      */
     @Override
@@ -122,43 +337,60 @@ public class Implementor implements JarImpler {
         Path path = getPathToFile(token, root, ".java");
         createDirectories(path);
 
-        generateClass(token);
-
-        try (BufferedWriter writer = Files.newBufferedWriter(path)) {
-            writer.write(toUnicode(code.toString()));
+        try (Writer writer = new UnicodeEscapingWriter(Files.newBufferedWriter(path))) {
+            if (cache != null) {
+                writer.write(getCachedSource(token));
+            } else {
+                generateClass(token, writer);
+            }
         } catch (IOException e) {
             throw new ImplerException("I/O error while writing to class file");
         }
     }
 
     /**
-     * Clean all including files and directories in input path.
+     * Produces loaded implementation of class or interface specified by provided token.
+     * Implementation is generated by {@link Backend#BYTECODE} backend and defined as hidden class.
+     * Result is cached, so repeated calls for the same token return the same class.
      *
-     * @param root input path.
-     * @throws IOException if occurs error while walking.
+     * @param token type token to create implementation for.
+     * @return implementation class. For interfaces it has public default constructor,
+     * for classes it has public constructor with the same parameters for every non-private constructor
+     * of implemented class, so it may have no default constructor.
+     * @throws ImplerException if token is null, can't be implemented or implementation can't be defined.
      */
-    private static void clean(final Path root) throws IOException {
-        if (Files.exists(root)) {
-            Files.walkFileTree(root, DELETE_VISITOR);
+    public Class<?> defineClass(Class<?> token) throws ImplerException {
+        checkToken(token);
+        try {
+            return DEFINED_CLASSES.get(token);
+        } catch (UndeclaredThrowableException e) {
+            throw (ImplerException) e.getUndeclaredThrowable();
         }
     }
 
     /**
-     * Convert to unicode string
+     * Define hidden implementation class. Class is defined in the package of implemented class if it is accessible,
+     * otherwise in the package of {@link Implementor}.
      *
-     * @param in input string
-     * @return converted string
-     */
-    private String toUnicode(String in) {
-        StringBuilder b = new StringBuilder();
-        for (char c : in.toCharArray()) {
-            if (c >= 128) {
-                b.append("\\u").append(String.format("%04X", (int) c));
-            } else {
-                b.append(c);
-            }
+     * @param token implemented class.
+     * @return defined class.
+     * @throws ImplerException if none of the packages allows to define class.
+     */
+    private static Class<?> defineHiddenClass(Class<?> token) throws ImplerException {
+        MethodHandles.Lookup lookup;
+        try {
+            lookup = MethodHandles.privateLookupIn(token, MethodHandles.lookup());
+        } catch (IllegalAccessException | SecurityException e) {
+            lookup = MethodHandles.lookup();
+        }
+        String packageName = lookup.lookupClass().getPackageName();
+        String className = (packageName.isEmpty() ? "" : packageName + ".") + getImplementedClassName(token);
+        try {
+            return lookup.defineHiddenClass(BytecodeGenerator.generate(token, className.replace('.', '/')), true)
+                    .lookupClass();
+        } catch (IllegalAccessException | LinkageError e) {
+            throw new ImplerException("Can't define implementation class", e);
         }
-        return b.toString();
     }
 
     /**
@@ -169,12 +401,34 @@ public class Implementor implements JarImpler {
      * @throws ImplerException if arguments is null or we can't implement this objects.
      */
     private void checkArguments(Class<?> token, Path path) throws ImplerException {
+        checkToken(token);
+        if (path == null) {
+            throw new ImplerException("Not null path is required");
+        }
+    }
+
+    /**
+     * Check that class can be implemented.
+     *
+     * @param token input class.
+     * @throws ImplerException if token is null or we can't implement it.
+     */
+    static void checkToken(Class<?> token) throws ImplerException {
         if (token == null) {
             throw new ImplerException("Not null token is required");
-        } else if (path == null) {
-            throw new ImplerException("Not null path is required");
-        } else if (!token.isInterface()) {
-            throw new ImplerException("Implementor supports only interfaces");
+        }
+        int modifiers = token.getModifiers();
+        if (token.isPrimitive() || token.isArray() || token.isEnum() || token == Enum.class) {
+            throw new ImplerException("Can't implement primitives, arrays and enums");
+        } else if (Modifier.isFinal(modifiers) || Modifier.isPrivate(modifiers)) {
+            throw new ImplerException("Can't implement final or private class");
+        } else if (!token.isInterface() && ImplementedMembers.getConstructors(token).isEmpty()) {
+            throw new ImplerException("Class has no accessible constructors");
+        }
+        try {
+            ImplementedMembers.getAbstractMethods(token);
+        } catch (IllegalArgumentException e) {
+            throw new ImplerException("Can't implement " + token.getName() + ": " + e.getMessage(), e);
         }
     }
 
@@ -233,23 +487,43 @@ public class Implementor implements JarImpler {
     }
 
     /**
-     * Generate implementation of class. Result will be stored in global {@link StringBuilder}.
+     * Generate implementation of class in memory.
      *
      * @param token class for implementing
+     * @return {@link StringBuilder} with source code of implementation.
      */
-    private void generateClass(Class<?> token) {
-        code = new StringBuilder();
-        currentClass = token;
+    private static StringBuilder generateClass(Class<?> token) {
+        StringBuilder code = new StringBuilder();
+        try {
+            generateClass(token, code);
+        } catch (IOException e) {
+            throw new AssertionError("StringBuilder doesn't throw IOException", e);
+        }
+        return code;
+    }
 
-        addHeader();
-        addBody();
+    /**
+     * Generate implementation of class, streaming it to output without intermediate copies.
+     * Generation doesn't use any shared state, so it is thread-safe.
+     *
+     * @param token class for implementing
+     * @param code  {@link Appendable} to write source code to.
+     * @throws IOException if output fails.
+     */
+    private static void generateClass(Class<?> token, Appendable code) throws IOException {
+        addHeader(token, code);
+        addBody(token, code);
         code.append("}");
     }
 
     /**
-     * Generate header of class: package and name of class. Result will be stored in global {@link StringBuilder}.
+     * Generate header of class: package and name of class.
+     *
+     * @param currentClass class for implementing.
+     * @param code         {@link Appendable} to append header to.
+     * @throws IOException if output fails.
      */
-    private void addHeader() {
+    private static void addHeader(Class<?> currentClass, Appendable code) throws IOException {
         if (!getPackageName(currentClass).equals("")) {
             code.append("package ")
                     .append(getPackageName(currentClass))
@@ -259,22 +533,41 @@ public class Implementor implements JarImpler {
         code.append("public class ")
                 .append(getImplementedClassName(currentClass))
                 .append(" ")
-                .append("implements ")
-                .append(currentClass.getCanonicalName())
+                .append(currentClass.isInterface() ? "implements " : "extends ")
+                .append(MemberInfo.getSourceName(currentClass))
                 .append(" {")
                 .append(System.lineSeparator());
     }
 
     /**
-     * Generate body of class: all methods and constructors. Result will be stored in global {@link StringBuilder}.
+     * Generate body of class: all methods and constructors.
+     * Signatures are taken pre-rendered from {@link ImplementedMembers}.
+     *
+     * @param currentClass class for implementing.
+     * @param code         {@link Appendable} to append body to.
+     * @throws IOException if output fails.
      */
-    private void addBody() {
-        for (Method method : currentClass.getMethods()) {
-            code.append(addMethodModifiersAndName(method))
+    private static void addBody(Class<?> currentClass, Appendable code) throws IOException {
+        for (MemberInfo constructor : ImplementedMembers.getConstructors(currentClass)) {
+            code.append("public ")
+                    .append(getImplementedClassName(currentClass))
                     .append("(")
-                    .append(addMethodArguments(method))
+                    .append(constructor.getArguments())
                     .append(")")
-                    .append(addMethodExceptions(method))
+                    .append(constructor.getExceptions())
+                    .append(" {")
+                    .append(System.lineSeparator())
+                    .append(addConstructorBody(constructor))
+                    .append(System.lineSeparator())
+                    .append("}")
+                    .append(System.lineSeparator());
+        }
+        for (MemberInfo method : ImplementedMembers.getAbstractMethods(currentClass)) {
+            addMethodModifiersAndName(method, code);
+            code.append("(")
+                    .append(method.getArguments())
+                    .append(")")
+                    .append(method.getExceptions())
                     .append(" {")
                     .append(System.lineSeparator())
                     .append(addMethodBody(method))
@@ -285,86 +578,55 @@ public class Implementor implements JarImpler {
     }
 
     /**
-     * Generate correct modifiers and name for {@link Method}.
+     * Generate correct modifiers, return type and name for method.
      *
      * @param method method to be processed.
-     * @return {@link StringBuilder} with string representation of method modifiers and name.
+     * @param code   {@link Appendable} to append to.
+     * @throws IOException if output fails.
      */
-    private StringBuilder addMethodModifiersAndName(Method method) {
-        StringBuilder localBuilder = new StringBuilder();
+    private static void addMethodModifiersAndName(MemberInfo method, Appendable code) throws IOException {
         int methodModifiers = method.getModifiers() & (Modifier.methodModifiers() ^ Modifier.ABSTRACT);
-        localBuilder.append(Modifier.toString(methodModifiers))
+        code.append(Modifier.toString(methodModifiers))
                 .append(" ")
-                .append(method.getReturnType().getCanonicalName())
+                .append(MemberInfo.getSourceName(method.getSourceReturnType()))
                 .append(" ")
                 .append(method.getName());
-        return localBuilder;
     }
 
     /**
-     * Generate correct list of arguments for {@link Method}.
+     * Generate body for constructor: call of super constructor with all arguments.
      *
-     * @param method method to be processed.
-     * @return {@link StringBuilder} with string representation of list of arguments.
-     */
-    private StringBuilder addMethodArguments(Method method) {
-        StringBuilder localBuilder = new StringBuilder();
-        int argumentIndex = 0;
-        for (Class argument : method.getParameterTypes()) {
-            localBuilder.append(argument.getCanonicalName())
-                    .append(" arg")
-                    .append(argumentIndex);
-            ++argumentIndex;
-            if (argumentIndex != method.getParameterCount()) {
+     * @param constructor constructor to be processed.
+     * @return {@link StringBuilder} with string representation of constructor body.
+     */
+    private static StringBuilder addConstructorBody(MemberInfo constructor) {
+        StringBuilder localBuilder = new StringBuilder("super(");
+        for (int argumentIndex = 0; argumentIndex < constructor.getParameterCount(); ++argumentIndex) {
+            if (argumentIndex != 0) {
                 localBuilder.append(", ");
             }
+            localBuilder.append("arg").append(argumentIndex);
         }
-        return localBuilder;
-    }
-
-    /**
-     * Generate list of {@link Exception}s for {@link Method}.
-     *
-     * @param method method to be processed.
-     * @return {@link StringBuilder} with string representation of list of exceptions.
-     */
-    private StringBuilder addMethodExceptions(Method method) {
-        StringBuilder localBuilder = new StringBuilder();
-        int exceptionIndex = 0, exceptionsCount = method.getExceptionTypes().length;
-        if (exceptionsCount != 0) {
-            localBuilder.append(" throws ");
-            for (Class exception : method.getExceptionTypes()) {
-                localBuilder.append(exception.getCanonicalName());
-                ++exceptionIndex;
-                if (exceptionIndex != exceptionsCount) {
-                    localBuilder.append(", ");
-                }
-            }
-        }
-        return localBuilder;
+        return localBuilder.append(");");
     }
 
     /**
-     * Generate body for {@link Method}.
+     * Generate body for method.
      *
      * @param method method to be processed.
-     * @return {@link StringBuilder} with string representation of method body.
+     * @return {@link String} with method body.
      */
-    private StringBuilder addMethodBody(Method method) {
-        StringBuilder localBuilder = new StringBuilder();
-        Class returnType = method.getReturnType();
+    private static String addMethodBody(MemberInfo method) {
+        Class<?> returnType = method.getSourceReturnType();
         if (returnType == void.class) {
-            localBuilder.append("return;");
+            return "return;";
+        } else if (returnType == boolean.class) {
+            return "return false;";
         } else if (returnType.isPrimitive()) {
-            if (returnType == boolean.class) {
-                localBuilder.append("return false;");
-            } else {
-                localBuilder.append("return 0;");
-            }
+            return "return 0;";
         } else {
-            localBuilder.append("return null;");
+            return "return null;";
         }
-        return localBuilder;
     }
 
     /**
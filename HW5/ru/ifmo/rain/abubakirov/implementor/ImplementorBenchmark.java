@@ -0,0 +1,359 @@
+package ru.ifmo.rain.abubakirov.implementor;
+
+import info.kgeorgiy.java.advanced.implementor.ImplerException;
+
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Modifier;
+import java.net.URI;
+import java.nio.file.*;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Measures {@link Implementor} over the implementor test corpus and public interfaces of {@code java.base}.
+ * For every class reports median latency of source and bytecode generation, compilation,
+ * writing jar of compiled class and the whole {@link Implementor#implementJar(Class, Path)}.
+ * Classes of named modules can't be compiled into the unnamed module, so only generation phases
+ * are measured for JDK interfaces.
+ * <p>
+ * Usage: {@code ImplementorBenchmark [-i iterations] corpus...}, where every corpus is a jar file
+ * or a directory with test classes under {@code basic/} and {@code full/} packages.
+ * Corpus has to be on the class path too, as generated sources are compiled against it.
+ */
+public class ImplementorBenchmark {
+    /**
+     * Number of generations timed together, as single generation is too fast to measure.
+     */
+    private static final int GENERATION_BATCH = 100;
+    /**
+     * Column names of report.
+     */
+    private static final String[] PHASES = {"source us", "bytecode us", "compile ms", "jar ms", "total ms"};
+
+    /**
+     * Number of measured runs of every phase.
+     */
+    private final int iterations;
+    /**
+     * Directory for generated jars.
+     */
+    private final Path directory;
+
+    /**
+     * Create benchmark.
+     *
+     * @param iterations number of measured runs of every phase.
+     * @param directory  directory for generated jars.
+     */
+    private ImplementorBenchmark(int iterations, Path directory) {
+        this.iterations = iterations;
+        this.directory = directory;
+    }
+
+    /**
+     * Run benchmark and print report to standard output.
+     *
+     * @param args {@code [-i iterations] corpus...}
+     */
+    public static void main(String[] args) {
+        if (args == null || args.length == 0) {
+            System.err.println("Usage: ImplementorBenchmark [-i iterations] corpus...");
+            return;
+        }
+        int iterations = 5;
+        int first = 0;
+        if (args[0].equals("-i") && args.length > 2) {
+            iterations = Integer.parseInt(args[1]);
+            first = 2;
+        }
+        try {
+            List<Class<?>> tokens = new ArrayList<>();
+            for (int i = first; i < args.length; ++i) {
+                tokens.addAll(getCorpusClasses(Paths.get(args[i])));
+            }
+            tokens.addAll(getJdkInterfaces());
+            Path directory = Files.createTempDirectory("implementor-benchmark");
+            try {
+                new ImplementorBenchmark(iterations, directory).run(tokens);
+            } finally {
+                deleteDirectory(directory);
+            }
+        } catch (IOException | ReflectiveOperationException | ImplerException e) {
+            System.err.println("Benchmark failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Measure all phases for all classes, one class after another, and print report.
+     *
+     * @param tokens classes to implement.
+     * @throws IOException     if jar can't be written.
+     * @throws ImplerException if implementation fails.
+     */
+    private void run(List<Class<?>> tokens) throws IOException, ImplerException {
+        List<Class<?>> implementable = new ArrayList<>();
+        for (Class<?> token : tokens) {
+            try {
+                Implementor.checkToken(token);
+                implementable.add(token);
+            } catch (ImplerException ignored) {
+                // Not implementable by design, as final classes in corpus
+            }
+        }
+
+        if (implementable.isEmpty()) {
+            System.out.println("No implementable classes");
+            return;
+        }
+
+        measure(implementable.get(0));
+        System.out.printf("%-80s", "class");
+        for (String phase : PHASES) {
+            System.out.printf(" %12s", phase);
+        }
+        System.out.println();
+
+        double[][] results = new double[implementable.size()][];
+        for (int i = 0; i < implementable.size(); ++i) {
+            results[i] = measure(implementable.get(i));
+            print(implementable.get(i).getName(), results[i]);
+        }
+        double[] medians = new double[PHASES.length];
+        for (int phase = 0; phase < PHASES.length; ++phase) {
+            double[] values = new double[results.length];
+            for (int i = 0; i < results.length; ++i) {
+                values[i] = results[i][phase];
+            }
+            medians[phase] = median(values);
+        }
+        print("median of " + implementable.size() + " classes", medians);
+
+        // JDK interfaces are left out, as nested ones from the same package may have the same implementation name
+        List<Class<?>> compilable = implementable.stream()
+                .filter(token -> !token.getModule().isNamed())
+                .collect(Collectors.toList());
+        if (compilable.isEmpty()) {
+            return;
+        }
+        for (Implementor.Backend backend : Implementor.Backend.values()) {
+            Implementor implementor = new Implementor(backend);
+            double[] times = new double[iterations];
+            for (int i = 0; i < iterations; ++i) {
+                long start = System.nanoTime();
+                implementor.implementJar(compilable, directory.resolve("batch.jar"));
+                times[i] = (System.nanoTime() - start) / 1e6;
+            }
+            System.out.printf(Locale.ROOT, "batch implementJar of %d classes, %s backend: %.1f ms%n",
+                    compilable.size(), backend, median(times));
+        }
+    }
+
+    /**
+     * Measure all phases for class.
+     *
+     * @param token class to implement.
+     * @return median times of phases in order of {@link #PHASES}, {@code NaN} for skipped phases.
+     * @throws IOException     if jar can't be written.
+     * @throws ImplerException if implementation fails.
+     */
+    private double[] measure(Class<?> token) throws IOException, ImplerException {
+        double[] result = new double[PHASES.length];
+        result[0] = median(time(() -> {
+            for (int i = 0; i < GENERATION_BATCH; ++i) {
+                Implementor.generateSource(token);
+            }
+        })) * 1000 / GENERATION_BATCH;
+        result[1] = median(time(() -> {
+            for (int i = 0; i < GENERATION_BATCH; ++i) {
+                Implementor.generateBytecode(token);
+            }
+        })) * 1000 / GENERATION_BATCH;
+        if (token.getModule().isNamed()) {
+            Arrays.fill(result, 2, result.length, Double.NaN);
+            return result;
+        }
+
+        List<JavaFileObject> sources = List.of(Implementor.generateSource(token));
+        Map<String, byte[]> compiled = new HashMap<>();
+        result[2] = median(time(() -> Implementor.compile(sources,
+                fileManager -> new InMemoryFileManager(fileManager, compiled))));
+        byte[] bytes = compiled.values().iterator().next();
+        Path jar = directory.resolve("class.jar");
+        result[3] = median(time(() -> {
+            try (JarOutputStream writer = new JarOutputStream(Files.newOutputStream(jar))) {
+                writer.putNextEntry(InMemoryFileManager.entry(JarFile.MANIFEST_NAME));
+                writer.closeEntry();
+                Implementor.writeClass(writer, token, bytes);
+            }
+        }));
+        Implementor implementor = new Implementor();
+        result[4] = median(time(() -> implementor.implementJar(token, jar)));
+        return result;
+    }
+
+    /**
+     * Phase of implementation.
+     */
+    private interface Phase {
+        /**
+         * Run phase once.
+         *
+         * @throws IOException     if output fails.
+         * @throws ImplerException if implementation fails.
+         */
+        void run() throws IOException, ImplerException;
+    }
+
+    /**
+     * Run phase once as warm up, then {@link #iterations} times measuring it.
+     *
+     * @param phase phase to measure.
+     * @return times of runs in milliseconds.
+     * @throws IOException     if phase fails.
+     * @throws ImplerException if phase fails.
+     */
+    private double[] time(Phase phase) throws IOException, ImplerException {
+        phase.run();
+        double[] times = new double[iterations];
+        for (int i = 0; i < iterations; ++i) {
+            long start = System.nanoTime();
+            phase.run();
+            times[i] = (System.nanoTime() - start) / 1e6;
+        }
+        return times;
+    }
+
+    /**
+     * Delete directory with all its contents.
+     *
+     * @param directory directory to delete.
+     * @throws IOException if some file can't be deleted.
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Get median of values, ignoring {@code NaN}s.
+     *
+     * @param values values.
+     * @return median, or {@code NaN} if there are no values.
+     */
+    private static double median(double[] values) {
+        double[] sorted = Arrays.stream(values).filter(value -> !Double.isNaN(value)).sorted().toArray();
+        if (sorted.length == 0) {
+            return Double.NaN;
+        }
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    /**
+     * Print row of report.
+     *
+     * @param name  row name.
+     * @param times times of phases.
+     */
+    private static void print(String name, double[] times) {
+        System.out.printf("%-80s", name);
+        for (double time : times) {
+            System.out.printf(Locale.ROOT, Double.isNaN(time) ? " %12s" : " %12.3f", Double.isNaN(time) ? "-" : time);
+        }
+        System.out.println();
+    }
+
+    /**
+     * Load test classes of implementor corpus.
+     *
+     * @param corpus jar file or directory with classes.
+     * @return classes under {@code basic/} and {@code full/} packages, in order of names.
+     * @throws IOException                  if corpus can't be read.
+     * @throws ReflectiveOperationException if class can't be loaded.
+     */
+    private static List<Class<?>> getCorpusClasses(Path corpus) throws IOException, ReflectiveOperationException {
+        List<String> names;
+        if (Files.isDirectory(corpus)) {
+            try (Stream<Path> files = Files.walk(corpus)) {
+                names = files.map(file -> corpus.relativize(file).toString().replace(File.separatorChar, '/'))
+                        .collect(Collectors.toList());
+            }
+        } else {
+            try (JarFile jar = new JarFile(corpus.toFile())) {
+                names = jar.stream().map(JarEntry::getName)
+                        .collect(Collectors.toList());
+            }
+        }
+        List<Class<?>> result = new ArrayList<>();
+        for (String name : new TreeSet<>(names)) {
+            if (name.endsWith(".class") && (name.contains("/basic/") || name.contains("/full/"))) {
+                Class<?> token = Class.forName(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                if (!token.isAnonymousClass() && !token.isLocalClass() && !token.isSynthetic()) {
+                    result.add(token);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Load public interfaces of packages exported by {@code java.base}.
+     *
+     * @return interfaces in order of names.
+     * @throws IOException                  if runtime image can't be read.
+     * @throws ReflectiveOperationException if class can't be loaded.
+     */
+    private static List<Class<?>> getJdkInterfaces() throws IOException, ReflectiveOperationException {
+        Module base = Object.class.getModule();
+        Path root = FileSystems.getFileSystem(URI.create("jrt:/")).getPath("modules", base.getName());
+        List<String> names;
+        try (Stream<Path> files = Files.walk(root)) {
+            names = files.map(file -> root.relativize(file).toString())
+                    .filter(name -> name.endsWith(".class") && !name.equals("module-info.class"))
+                    .map(name -> name.substring(0, name.length() - ".class".length()).replace('/', '.'))
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        List<Class<?>> result = new ArrayList<>();
+        for (String name : names) {
+            int separator = name.lastIndexOf('.');
+            if (!base.isExported(name.substring(0, separator))) {
+                continue;
+            }
+            Class<?> token = Class.forName(name, false, null);
+            if (token.isInterface() && !token.isAnnotation() && isPublic(token)) {
+                result.add(token);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Check that class and all its enclosing classes are public.
+     *
+     * @param token class.
+     * @return whether class is accessible from everywhere.
+     */
+    private static boolean isPublic(Class<?> token) {
+        for (Class<?> current = token; current != null; current = current.getEnclosingClass()) {
+            if (!Modifier.isPublic(current.getModifiers())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
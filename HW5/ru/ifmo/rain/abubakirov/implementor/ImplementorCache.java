@@ -0,0 +1,200 @@
+package ru.ifmo.rain.abubakirov.implementor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Persistent content-addressed cache of {@link Implementor} outputs.
+ * Entries are keyed by hash of reflected shape of implemented class and target release,
+ * so unchanged classes skip generation and compilation. Total size of entries is capped,
+ * least recently used entries are evicted first. Cache failures never fail implementation,
+ * failed reads are treated as misses and failed writes are ignored.
+ */
+public class ImplementorCache {
+    /**
+     * Version of cache format, changed whenever generated code changes.
+     */
+    private static final String FORMAT = "2";
+    /**
+     * Extension of temporary files, which are not entries yet.
+     */
+    private static final String TMP_SUFFIX = ".tmp";
+
+    /**
+     * Directory with cache entries.
+     */
+    private final Path directory;
+    /**
+     * Maximal total size of entries in bytes.
+     */
+    private final long maxSize;
+    /**
+     * Current total size of entries in bytes.
+     */
+    private long size;
+
+    /**
+     * Create cache in given directory, reusing entries already stored there.
+     *
+     * @param directory directory with cache entries, created if doesn't exist.
+     * @param maxSize   maximal total size of entries in bytes.
+     * @throws IOException if directory can't be created or read.
+     */
+    public ImplementorCache(Path directory, long maxSize) throws IOException {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Cache size should be non-negative");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.maxSize = maxSize;
+        for (Path entry : getEntries()) {
+            size += Files.size(entry);
+        }
+        evict();
+    }
+
+    /**
+     * Get key of implementation of class: SHA-256 of its name, modifiers, supertype, implemented members
+     * and current Java release.
+     *
+     * @param token implemented class.
+     * @return hexadecimal key.
+     */
+    static String key(Class<?> token) {
+        StringBuilder shape = new StringBuilder(FORMAT)
+                .append('\n').append(Runtime.version().feature())
+                .append('\n').append(token.getName())
+                .append('\n').append(token.getModifiers())
+                .append('\n').append(token.isInterface());
+        for (MemberInfo constructor : ImplementedMembers.getConstructors(token)) {
+            appendMember(shape, constructor);
+        }
+        for (MemberInfo method : ImplementedMembers.getAbstractMethods(token)) {
+            appendMember(shape, method);
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(shape.toString().getBytes(StandardCharsets.UTF_8));
+            StringBuilder key = new StringBuilder();
+            for (byte b : hash) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError("SHA-256 is always supported", e);
+        }
+    }
+
+    /**
+     * Append modifiers, name, descriptor, resolved source signature and declared exceptions of member.
+     *
+     * @param shape  builder to append to.
+     * @param member method or constructor.
+     */
+    private static void appendMember(StringBuilder shape, MemberInfo member) {
+        shape.append('\n').append(member.getModifiers())
+                .append(' ').append(member.getName())
+                .append(member.getDescriptor())
+                .append(' ').append(MemberInfo.getSourceName(member.getSourceReturnType()))
+                .append(" (").append(member.getArguments()).append(')').append(member.getExceptions())
+                .append(" (");
+        for (int i = 0; i < member.getExceptionCount(); ++i) {
+            shape.append(member.getExceptionType(i).getName()).append(',');
+        }
+        shape.append(')');
+    }
+
+    /**
+     * Get cached entry and mark it as recently used.
+     * Marking is best-effort, entry is returned even if its modification time can't be updated.
+     *
+     * @param name entry name.
+     * @return entry contents or {@code null} if there is no such entry.
+     */
+    synchronized byte[] get(String name) {
+        Path entry = directory.resolve(name);
+        byte[] data;
+        try {
+            data = Files.readAllBytes(entry);
+        } catch (IOException e) {
+            return null;
+        }
+        try {
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException ignored) {
+            // Entry may be evicted earlier than needed
+        }
+        return data;
+    }
+
+    /**
+     * Store entry, evicting least recently used entries if cache becomes too large.
+     *
+     * @param name entry name.
+     * @param data entry contents.
+     */
+    synchronized void put(String name, byte[] data) {
+        if (data.length > maxSize) {
+            return;
+        }
+        Path entry = directory.resolve(name);
+        try {
+            Path tmp = Files.createTempFile(directory, name, TMP_SUFFIX);
+            try {
+                Files.write(tmp, data);
+                long oldSize = Files.exists(entry) ? Files.size(entry) : 0;
+                Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                size += data.length - oldSize;
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            evict();
+        } catch (IOException e) {
+            System.err.println("Can't store implementation in cache " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delete least recently used entries until total size is within limit.
+     *
+     * @throws IOException if directory can't be read.
+     */
+    private void evict() throws IOException {
+        if (size <= maxSize) {
+            return;
+        }
+        List<Path> entries = getEntries();
+        Map<Path, FileTime> times = new HashMap<>();
+        for (Path entry : entries) {
+            times.put(entry, Files.getLastModifiedTime(entry));
+        }
+        entries.sort(Comparator.comparing(times::get));
+        for (int i = 0; i < entries.size() && size > maxSize; ++i) {
+            Path entry = entries.get(i);
+            long entrySize = Files.size(entry);
+            if (Files.deleteIfExists(entry)) {
+                size -= entrySize;
+            }
+        }
+    }
+
+    /**
+     * Get all entries of cache.
+     *
+     * @return paths of entries.
+     * @throws IOException if directory can't be read.
+     */
+    private List<Path> getEntries() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.filter(Files::isRegularFile)
+                    .filter(file -> !file.getFileName().toString().endsWith(TMP_SUFFIX))
+                    .forEach(entries::add);
+        }
+        return entries;
+    }
+}
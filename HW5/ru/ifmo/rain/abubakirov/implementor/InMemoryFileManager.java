@@ -0,0 +1,167 @@
+package ru.ifmo.rain.abubakirov.implementor;
+
+import javax.tools.*;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.Map;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+/**
+ * {@link JavaFileManager} which writes compiled classes directly into {@link JarOutputStream}
+ * or collects them in memory.
+ */
+class InMemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+    /**
+     * Modification time of all jar entries, 1980-02-01, close to the earliest time representable in zip format.
+     */
+    private static final long ENTRY_TIME = 318211200000L;
+
+    /**
+     * Target jar for compiled classes, or {@code null} if classes are collected in {@link #classes}.
+     */
+    private final JarOutputStream jar;
+    /**
+     * Compiled classes by their binary names, or {@code null} if classes are written to {@link #jar}.
+     */
+    private final Map<String, byte[]> classes;
+
+    /**
+     * Create file manager writing classes to given jar.
+     *
+     * @param fileManager standard file manager used for all other files.
+     * @param jar         target jar.
+     */
+    InMemoryFileManager(StandardJavaFileManager fileManager, JarOutputStream jar) {
+        super(fileManager);
+        this.jar = jar;
+        this.classes = null;
+    }
+
+    /**
+     * Create file manager collecting classes to given map.
+     *
+     * @param fileManager standard file manager used for all other files.
+     * @param classes     map from binary names to bytes of compiled classes.
+     */
+    InMemoryFileManager(StandardJavaFileManager fileManager, Map<String, byte[]> classes) {
+        super(fileManager);
+        this.jar = null;
+        this.classes = classes;
+    }
+
+    /**
+     * Create in-memory source file.
+     *
+     * @param className binary name of class.
+     * @param code      source code of class.
+     * @return {@link JavaFileObject} with given code.
+     */
+    static JavaFileObject source(String className, CharSequence code) {
+        return new SourceFile(className, code);
+    }
+
+    /**
+     * Get name of .jar entry for given class.
+     *
+     * @param className binary name of class.
+     * @return entry name with '/' as separator.
+     */
+    static String getEntryName(String className) {
+        return className.replace('.', '/') + JavaFileObject.Kind.CLASS.extension;
+    }
+
+    /**
+     * Create jar entry with fixed modification time, so jars are reproducible.
+     *
+     * @param name entry name.
+     * @return new {@link ZipEntry}.
+     */
+    static ZipEntry entry(String name) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTime(ENTRY_TIME);
+        return entry;
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                               JavaFileObject.Kind kind, FileObject sibling) throws IOException {
+        if (location == StandardLocation.CLASS_OUTPUT && kind == JavaFileObject.Kind.CLASS) {
+            return new ClassFile(className);
+        }
+        return super.getJavaFileForOutput(location, className, kind, sibling);
+    }
+
+    /**
+     * Source file stored in memory.
+     */
+    private static class SourceFile extends SimpleJavaFileObject {
+        /**
+         * Source code of class.
+         */
+        private final CharSequence code;
+
+        /**
+         * Create source file for class.
+         *
+         * @param className binary name of class.
+         * @param code      source code of class.
+         */
+        SourceFile(String className, CharSequence code) {
+            super(URI.create("string:///" + className.replace('.', '/') + Kind.SOURCE.extension), Kind.SOURCE);
+            this.code = code;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return code;
+        }
+    }
+
+    /**
+     * Class file which is written as jar entry or collected in memory.
+     */
+    private class ClassFile extends SimpleJavaFileObject {
+        /**
+         * Binary name of class.
+         */
+        private final String className;
+
+        /**
+         * Create class file for class.
+         *
+         * @param className binary name of class.
+         */
+        ClassFile(String className) {
+            super(URI.create("jar:///" + getEntryName(className)), Kind.CLASS);
+            this.className = className;
+        }
+
+        @Override
+        public OutputStream openOutputStream() throws IOException {
+            if (jar == null) {
+                return new ByteArrayOutputStream() {
+                    @Override
+                    public void close() {
+                        classes.put(className, toByteArray());
+                    }
+                };
+            }
+            jar.putNextEntry(entry(getEntryName(className)));
+            return new FilterOutputStream(jar) {
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    out.write(b, off, len);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    jar.closeEntry();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package ru.ifmo.rain.abubakirov.implementor;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+
+/**
+ * Reflection metadata of implemented method or constructor, rendered once.
+ * Type names and descriptors are cached per {@link Class} in {@link ClassValue}s,
+ * so they are shared by all generations and safe to use from several threads.
+ */
+final class MemberInfo {
+    /**
+     * Cache of canonical type names, as used in generated source.
+     */
+    private static final ClassValue<String> SOURCE_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return type.getCanonicalName();
+        }
+    };
+    /**
+     * Cache of field descriptors of types, as used in class files.
+     */
+    private static final ClassValue<String> DESCRIPTORS = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            if (type.isArray()) {
+                return getInternalName(type);
+            } else if (type.isPrimitive()) {
+                return String.valueOf(getPrimitiveDescriptor(type));
+            } else {
+                return "L" + getInternalName(type) + ";";
+            }
+        }
+    };
+
+    /**
+     * Name of method, {@code <init>} for constructors.
+     */
+    private final String name;
+    /**
+     * Modifiers of method.
+     */
+    private final int modifiers;
+    /**
+     * Return type, {@code void} for constructors.
+     */
+    private final Class<?> returnType;
+    /**
+     * Parameter types. Never exposed to be modified.
+     */
+    private final Class<?>[] parameterTypes;
+    /**
+     * Declared exceptions. Never exposed to be modified.
+     */
+    private final Class<?>[] exceptionTypes;
+    /**
+     * Return type in source, resolved by {@link TypeResolver}.
+     */
+    private final Class<?> sourceReturnType;
+    /**
+     * Parameter list in source form with types resolved by {@link TypeResolver}: {@code Type0 arg0, Type1 arg1}.
+     */
+    private final String arguments;
+    /**
+     * Throws clause in source form with leading space, or empty string.
+     */
+    private final String exceptions;
+    /**
+     * Method descriptor.
+     */
+    private final String descriptor;
+
+    /**
+     * Collect and render metadata of method or constructor.
+     * Descriptor uses erased types of declaration, while source form uses types resolved for implemented class.
+     *
+     * @param executable method or constructor.
+     * @param resolver   resolver of types for implemented class.
+     * @throws IllegalArgumentException if some type can't be resolved.
+     */
+    MemberInfo(Executable executable, TypeResolver resolver) {
+        name = executable instanceof Constructor ? "<init>" : executable.getName();
+        modifiers = executable.getModifiers();
+        parameterTypes = executable.getParameterTypes();
+        exceptionTypes = executable.getExceptionTypes();
+        if (executable instanceof Method) {
+            returnType = ((Method) executable).getReturnType();
+            sourceReturnType = resolver.resolve(((Method) executable).getGenericReturnType());
+        } else {
+            returnType = void.class;
+            sourceReturnType = void.class;
+        }
+        Class<?>[] sourceParameterTypes = resolver.resolve(executable.getGenericParameterTypes(), parameterTypes);
+        Class<?>[] sourceExceptionTypes = resolver.resolve(executable.getGenericExceptionTypes(), exceptionTypes);
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < sourceParameterTypes.length; ++i) {
+            if (i != 0) {
+                builder.append(", ");
+            }
+            builder.append(getSourceName(sourceParameterTypes[i])).append(" arg").append(i);
+        }
+        arguments = builder.toString();
+
+        builder.setLength(0);
+        for (int i = 0; i < sourceExceptionTypes.length; ++i) {
+            builder.append(i == 0 ? " throws " : ", ").append(getSourceName(sourceExceptionTypes[i]));
+        }
+        exceptions = builder.toString();
+
+        builder.setLength(0);
+        builder.append('(');
+        for (Class<?> parameter : parameterTypes) {
+            builder.append(getDescriptor(parameter));
+        }
+        descriptor = builder.append(')').append(getDescriptor(returnType)).toString();
+    }
+
+    /**
+     * Get name of type as it is written in source code.
+     *
+     * @param type type.
+     * @return cached canonical name.
+     */
+    static String getSourceName(Class<?> type) {
+        return SOURCE_NAMES.get(type);
+    }
+
+    /**
+     * Get field descriptor of type.
+     *
+     * @param type type.
+     * @return cached descriptor.
+     */
+    static String getDescriptor(Class<?> type) {
+        return DESCRIPTORS.get(type);
+    }
+
+    /**
+     * Get internal name of class, as used in class info constants.
+     *
+     * @param token class.
+     * @return binary name with '/' as package separator, which is descriptor for arrays.
+     */
+    static String getInternalName(Class<?> token) {
+        return token.getName().replace('.', '/');
+    }
+
+    /**
+     * Get descriptor of primitive type.
+     *
+     * @param type primitive type.
+     * @return one-letter descriptor.
+     */
+    private static char getPrimitiveDescriptor(Class<?> type) {
+        if (type == void.class) {
+            return 'V';
+        } else if (type == boolean.class) {
+            return 'Z';
+        } else if (type == byte.class) {
+            return 'B';
+        } else if (type == char.class) {
+            return 'C';
+        } else if (type == short.class) {
+            return 'S';
+        } else if (type == int.class) {
+            return 'I';
+        } else if (type == long.class) {
+            return 'J';
+        } else if (type == float.class) {
+            return 'F';
+        } else {
+            return 'D';
+        }
+    }
+
+    /**
+     * @return name of method, {@code <init>} for constructors.
+     */
+    String getName() {
+        return name;
+    }
+
+    /**
+     * @return modifiers of method.
+     */
+    int getModifiers() {
+        return modifiers;
+    }
+
+    /**
+     * @return return type, {@code void} for constructors.
+     */
+    Class<?> getReturnType() {
+        return returnType;
+    }
+
+    /**
+     * @return return type in source, resolved for implemented class.
+     */
+    Class<?> getSourceReturnType() {
+        return sourceReturnType;
+    }
+
+    /**
+     * @return number of parameters.
+     */
+    int getParameterCount() {
+        return parameterTypes.length;
+    }
+
+    /**
+     * @param index parameter index.
+     * @return type of parameter.
+     */
+    Class<?> getParameterType(int index) {
+        return parameterTypes[index];
+    }
+
+    /**
+     * @return number of declared exceptions.
+     */
+    int getExceptionCount() {
+        return exceptionTypes.length;
+    }
+
+    /**
+     * @param index exception index.
+     * @return declared exception.
+     */
+    Class<?> getExceptionType(int index) {
+        return exceptionTypes[index];
+    }
+
+    /**
+     * @return parameter list in source form with resolved types, without parentheses.
+     */
+    String getArguments() {
+        return arguments;
+    }
+
+    /**
+     * @return throws clause in source form with resolved types and leading space, or empty string.
+     */
+    String getExceptions() {
+        return exceptions;
+    }
+
+    /**
+     * @return method descriptor.
+     */
+    String getDescriptor() {
+        return descriptor;
+    }
+}
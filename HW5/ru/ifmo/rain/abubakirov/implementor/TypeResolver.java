@@ -0,0 +1,100 @@
+package ru.ifmo.rain.abubakirov.implementor;
+
+import java.lang.reflect.*;
+import java.util.*;
+
+/**
+ * Resolves types of inherited members as they are seen from implemented class.
+ * Type variables of supertypes are substituted by type arguments given along the supertype chain,
+ * then the type is erased, so generated source overrides members of parameterized supertypes.
+ * Implementation extends implemented class as raw type, so if it is generic,
+ * all inherited members are erased, as for any raw type.
+ */
+final class TypeResolver {
+    /**
+     * Type arguments of supertypes by their type variables.
+     */
+    private final Map<TypeVariable<?>, Type> bindings = new HashMap<>();
+
+    /**
+     * Collect type arguments of all supertypes of class.
+     *
+     * @param token implemented class.
+     */
+    TypeResolver(Class<?> token) {
+        if (token.getTypeParameters().length == 0) {
+            bind(token, new HashSet<>());
+        }
+    }
+
+    /**
+     * Bind type variables of direct supertypes of class and walk their supertypes.
+     * Raw supertypes are not walked, as their members are erased.
+     *
+     * @param token   class or interface.
+     * @param visited already walked classes.
+     */
+    private void bind(Class<?> token, Set<Class<?>> visited) {
+        if (!visited.add(token)) {
+            return;
+        }
+        List<Type> supertypes = new ArrayList<>(Arrays.asList(token.getGenericInterfaces()));
+        if (token.getGenericSuperclass() != null) {
+            supertypes.add(0, token.getGenericSuperclass());
+        }
+        for (Type supertype : supertypes) {
+            if (supertype instanceof ParameterizedType) {
+                ParameterizedType parameterized = (ParameterizedType) supertype;
+                Class<?> raw = (Class<?>) parameterized.getRawType();
+                TypeVariable<?>[] variables = raw.getTypeParameters();
+                Type[] arguments = parameterized.getActualTypeArguments();
+                for (int i = 0; i < variables.length; ++i) {
+                    bindings.putIfAbsent(variables[i], arguments[i]);
+                }
+                bind(raw, visited);
+            }
+        }
+    }
+
+    /**
+     * Resolve types of member, falling back to erased ones if generic signature doesn't match them,
+     * as for constructors of inner classes.
+     *
+     * @param types  generic types.
+     * @param erased erased types.
+     * @return resolved types.
+     * @throws IllegalArgumentException if some type can't be resolved.
+     */
+    Class<?>[] resolve(Type[] types, Class<?>[] erased) {
+        if (types.length != erased.length) {
+            return erased;
+        }
+        Class<?>[] result = new Class<?>[types.length];
+        for (int i = 0; i < types.length; ++i) {
+            result[i] = resolve(types[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Substitute type variables bound by supertypes and erase type.
+     * Unbound type variables, as ones of methods or of raw supertypes, are replaced by their first bound.
+     *
+     * @param type type of member.
+     * @return resolved class.
+     * @throws IllegalArgumentException if type can't be resolved.
+     */
+    Class<?> resolve(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        } else if (type instanceof GenericArrayType) {
+            return resolve(((GenericArrayType) type).getGenericComponentType()).arrayType();
+        } else if (type instanceof TypeVariable) {
+            Type bound = bindings.get(type);
+            return resolve(bound != null ? bound : ((TypeVariable<?>) type).getBounds()[0]);
+        }
+        throw new IllegalArgumentException("Can't resolve type " + type.getTypeName());
+    }
+}
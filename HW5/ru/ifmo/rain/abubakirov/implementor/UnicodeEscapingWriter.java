@@ -0,0 +1,64 @@
+package ru.ifmo.rain.abubakirov.implementor;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * {@link Writer} which replaces all non-ASCII characters with unicode escapes while writing.
+ */
+class UnicodeEscapingWriter extends FilterWriter {
+    /**
+     * Hexadecimal digits.
+     */
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Create escaping writer.
+     *
+     * @param out underlying writer.
+     */
+    UnicodeEscapingWriter(Writer out) {
+        super(out);
+    }
+
+    @Override
+    public void write(int c) throws IOException {
+        if (c >= 128) {
+            out.write('\\');
+            out.write('u');
+            out.write(HEX[(c >> 12) & 0xF]);
+            out.write(HEX[(c >> 8) & 0xF]);
+            out.write(HEX[(c >> 4) & 0xF]);
+            out.write(HEX[c & 0xF]);
+        } else {
+            out.write(c);
+        }
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        int start = off;
+        for (int i = off; i < off + len; ++i) {
+            if (cbuf[i] >= 128) {
+                out.write(cbuf, start, i - start);
+                write(cbuf[i]);
+                start = i + 1;
+            }
+        }
+        out.write(cbuf, start, off + len - start);
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        int start = off;
+        for (int i = off; i < off + len; ++i) {
+            if (str.charAt(i) >= 128) {
+                out.write(str, start, i - start);
+                write(str.charAt(i));
+                start = i + 1;
+            }
+        }
+        out.write(str, start, off + len - start);
+    }
+}
@@ -3,12 +3,31 @@ package ru.ifmo.rain.abubakirov.concurrent;
 import info.kgeorgiy.java.advanced.concurrent.ScalarIP;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class IterativeParallelism implements ScalarIP {
+    private static final int BLOCKS_PER_THREAD = 4;
+    private static final int MAX_POOLS = 4;
+    /**
+     * Pools by parallelism, least recently used first. Evicted pools are shut down,
+     * and idle workers of every pool stop after a while.
+     */
+    private static final Map<Integer, ForkJoinPool> POOLS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ForkJoinPool> eldest) {
+            if (size() > MAX_POOLS) {
+                eldest.getValue().shutdown();
+                return true;
+            }
+            return false;
+        }
+    };
+
     /**
      * Default constructor.
      */
@@ -16,49 +35,116 @@ public class IterativeParallelism implements ScalarIP {
 
     }
 
+    /**
+     * Runs {@code task} over blocks of {@code values} and merges block results by {@code collector}.
+     * Blocks are run on {@link ForkJoinPool} with parallelism of {@code threadsNumber},
+     * shared by calls with the same parallelism,
+     * values are split into several blocks per thread so idle workers steal remaining ones,
+     * and neighbouring block results are merged as soon as both are ready.
+     */
     private <T, R> R doTask(int threadsNumber, List<? extends T> values,
                             Function<? super Stream<? extends T>, ? extends R> task,
                             Function<? super Stream<? extends R>, ? extends R> collector)
             throws InterruptedException {
         threadsNumber = Math.max(1, Math.min(values.size(), threadsNumber));
-        List<Stream<? extends T>> concurrentTasks = new ArrayList<>();
-        int sizeOfBlock = values.size() / threadsNumber;
-        int remaining = values.size() % threadsNumber;
-
-        for (int l, r = 0, i = 0; i < threadsNumber; ++i) {
-            l = r;
-            r = l + sizeOfBlock;
-            if (remaining > 0) {
-                ++r;
-                --remaining;
+        if (threadsNumber == 1) {
+            return collector.apply(Stream.of(task.apply(values.stream())));
+        }
+        int blocks = Math.min(values.size(), threadsNumber * BLOCKS_PER_THREAD);
+        return invoke(threadsNumber, new BlockTask<T, R>(values, blocks, task, collector));
+    }
+
+    /**
+     * Runs task on pool of given parallelism and waits for its result.
+     * If current thread is interrupted, blocks, which are not started yet, are skipped.
+     */
+    private static <R> R invoke(int parallelism, ForkJoinTask<R> task) throws InterruptedException {
+        while (true) {
+            ForkJoinPool pool;
+            synchronized (POOLS) {
+                pool = POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+            }
+            try {
+                pool.execute(task);
+                break;
+            } catch (RejectedExecutionException e) {
+                // Pool was evicted concurrently, take another one
             }
-            concurrentTasks.add(values.subList(l, r).stream());
         }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
 
-        List<R> result = new ArrayList<>(Collections.nCopies(threadsNumber, null));
-        List<Thread> workers = new ArrayList<>();
-        for (int i = 0; i < threadsNumber; ++i) {
-            final int pos = i;
-            Thread thread = new Thread(() -> result.set(pos, task.apply(concurrentTasks.get(pos))));
-            workers.add(thread);
-            thread.run();
+    /**
+     * Computes results of blocks {@code [from, to)} out of {@code blocks} equal blocks of values,
+     * splitting range in halves until single block is left.
+     * Left half is computed by current thread, so blocks are started from the front of values.
+     * Failed block completes root task with its exception at once.
+     * Once root task is done, because it is cancelled or some block failed, remaining blocks are not started.
+     */
+    @SuppressWarnings("serial")
+    private static class BlockTask<T, R> extends RecursiveTask<R> {
+        private final BlockTask<T, R> root;
+        private final List<? extends T> values;
+        private final int blocks;
+        private final int from;
+        private final int to;
+        private final Function<? super Stream<? extends T>, ? extends R> task;
+        private final Function<? super Stream<? extends R>, ? extends R> collector;
+
+        BlockTask(List<? extends T> values, int blocks,
+                  Function<? super Stream<? extends T>, ? extends R> task,
+                  Function<? super Stream<? extends R>, ? extends R> collector) {
+            this(null, values, blocks, 0, blocks, task, collector);
         }
 
-        InterruptedException exception = null;
-        for (Thread thread : workers) {
-            try {
-                thread.join();
-            } catch (InterruptedException e) {
-                if (exception == null) {
-                    exception = new InterruptedException();
+        private BlockTask(BlockTask<T, R> root, List<? extends T> values, int blocks, int from, int to,
+                          Function<? super Stream<? extends T>, ? extends R> task,
+                          Function<? super Stream<? extends R>, ? extends R> collector) {
+            this.root = root == null ? this : root;
+            this.values = values;
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+            this.task = task;
+            this.collector = collector;
+        }
+
+        @Override
+        protected R compute() {
+            if (root != this && root.isDone()) {
+                throw new CancellationException();
+            }
+            if (to - from == 1) {
+                try {
+                    return task.apply(values.subList(bound(from), bound(to)).stream());
+                } catch (RuntimeException | Error e) {
+                    root.completeExceptionally(e);
+                    throw e;
                 }
-                exception.addSuppressed(e);
             }
+            int middle = (from + to) >>> 1;
+            BlockTask<T, R> right = new BlockTask<>(root, values, blocks, middle, to, task, collector);
+            right.fork();
+            R left = new BlockTask<>(root, values, blocks, from, middle, task, collector).compute();
+            return collector.apply(Stream.of(left, right.join()));
         }
-        if (exception != null) {
-            throw exception;
+
+        private int bound(int block) {
+            return (int) ((long) values.size() * block / blocks);
         }
-        return collector.apply(result.stream());
     }
 
     @Override
@@ -78,12 +164,22 @@ public class IterativeParallelism implements ScalarIP {
     @Override
     public <T> boolean all(int threads, List<? extends T> values, Predicate<? super T> predicate)
             throws InterruptedException {
-        return doTask(threads, values, stream -> stream.allMatch(predicate), stream -> stream.allMatch(Boolean::booleanValue));
+        return !any(threads, values, predicate.negate());
     }
 
+    /**
+     * Blocks share a flag, which is raised by the first one finding a matching value.
+     * Other blocks check it before every value and stop as soon as it is raised.
+     */
     @Override
     public <T> boolean any(int threads, List<? extends T> values, Predicate<? super T> predicate)
             throws InterruptedException {
-        return doTask(threads, values, stream -> stream.anyMatch(predicate), stream -> stream.anyMatch(Boolean::booleanValue));
+        AtomicBoolean found = new AtomicBoolean();
+        return doTask(threads, values, stream -> {
+            if (stream.anyMatch(value -> found.get() || predicate.test(value))) {
+                found.set(true);
+            }
+            return found.get();
+        }, stream -> stream.anyMatch(Boolean::booleanValue));
     }
 }
@@ -0,0 +1,101 @@
+package ru.ifmo.rain.abubakirov.concurrent;
+
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+/**
+ * Mapper for functions blocking on I/O. Every element is mapped by its own task,
+ * and up to {@code concurrency} tasks are in flight at once, independently of number of processors.
+ * Threads are created by given {@link ThreadFactory} on demand and stop after being idle for a while.
+ * Used with {@link IterativeParallelism}, it runs every block as separate task.
+ */
+public class BlockingParallelMapper implements ParallelMapper {
+    private static final long KEEP_ALIVE_SECONDS = 10;
+    private static final long CLOSE_TIMEOUT_SECONDS = 10;
+
+    private final ExecutorService executor;
+
+    /**
+     * Creates mapper running tasks on platform threads.
+     *
+     * @param concurrency maximal number of elements mapped at once.
+     */
+    public BlockingParallelMapper(int concurrency) {
+        this(concurrency, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates mapper running tasks on threads created by given factory.
+     *
+     * @param concurrency   maximal number of elements mapped at once.
+     * @param threadFactory factory of threads running tasks.
+     */
+    public BlockingParallelMapper(int concurrency, ThreadFactory threadFactory) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("Concurrency should be positive");
+        }
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(concurrency, concurrency,
+                KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), threadFactory);
+        executor.allowCoreThreadTimeOut(true);
+        this.executor = executor;
+    }
+
+    /**
+     * Maps elements concurrently, preserving their order.
+     * If function fails on some elements, the first failure is rethrown with others suppressed.
+     * Errors are rethrown as is, checked exceptions are wrapped in {@link IllegalStateException}.
+     * If current thread is interrupted, tasks of this call are cancelled.
+     */
+    @Override
+    public <T, R> List<R> map(Function<? super T, ? extends R> function, List<? extends T> args)
+            throws InterruptedException {
+        List<Future<? extends R>> futures = new ArrayList<>(args.size());
+        for (T arg : args) {
+            futures.add(executor.submit(() -> function.apply(arg)));
+        }
+        List<R> result = new ArrayList<>(args.size());
+        Throwable exception = null;
+        for (Future<? extends R> future : futures) {
+            try {
+                result.add(future.get());
+            } catch (InterruptedException e) {
+                futures.forEach(f -> f.cancel(true));
+                throw e;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause() instanceof RuntimeException || e.getCause() instanceof Error
+                        ? e.getCause() : new IllegalStateException(e.getCause());
+                if (exception == null) {
+                    exception = cause;
+                } else {
+                    exception.addSuppressed(cause);
+                }
+                result.add(null);
+            }
+        }
+        if (exception instanceof Error) {
+            throw (Error) exception;
+        } else if (exception != null) {
+            throw (RuntimeException) exception;
+        }
+        return result;
+    }
+
+    /**
+     * Interrupts running tasks and waits for them to finish for up to {@link #CLOSE_TIMEOUT_SECONDS},
+     * so tasks ignoring interrupts don't block closing forever.
+     * If current thread is interrupted, it stops waiting and keeps interrupted status.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
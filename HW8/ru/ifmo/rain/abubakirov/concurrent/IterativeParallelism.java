@@ -4,13 +4,41 @@ import info.kgeorgiy.java.advanced.concurrent.ListIP;
 import info.kgeorgiy.java.advanced.concurrent.ScalarIP;
 import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BinaryOperator;
 import java.util.function.Function;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 public class IterativeParallelism implements ListIP {
+    private static final long SAMPLE_NANOS = 20_000;
+    private static final long SEQUENTIAL_NANOS = 100_000;
+    private static final long BLOCK_NANOS = 200_000;
+    private static final int MAX_BLOCKS_PER_THREAD = 16;
+    private static final int MERGES_PER_BLOCK = 8;
+    private static final int JOIN_WINDOW = 1 << 16;
+    private static final int JOIN_COPY_WINDOW = 1 << 12;
+    private static final int MAX_STRING_LENGTH = Integer.MAX_VALUE - 8;
+    private static final int MAX_POOLS = 4;
+    /**
+     * Pools by parallelism, least recently used first. Evicted pools are shut down,
+     * and idle workers of every pool stop after a while.
+     */
+    private static final Map<Integer, ForkJoinPool> POOLS = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, ForkJoinPool> eldest) {
+            if (size() > MAX_POOLS) {
+                eldest.getValue().shutdown();
+                return true;
+            }
+            return false;
+        }
+    };
+
     private ParallelMapper parallelMapper;
 
     /**
@@ -28,96 +56,600 @@ public class IterativeParallelism implements ListIP {
         this.parallelMapper = parallelMapper;
     }
 
-    private <T, R> R doTask(int threadsNumber, List<? extends T> values,
-                            Function<? super Stream<? extends T>, ? extends R> task,
-                            Function<? super Stream<? extends R>, ? extends R> collector)
+    /**
+     * Task computing result for range of indices.
+     */
+    @FunctionalInterface
+    interface RangeTask<R> {
+        R apply(int from, int to);
+    }
+
+    /**
+     * Runs {@code task} over blocks of indices {@code [0, size)} and merges block results by {@code combiner}
+     * in order of blocks.
+     * <p>
+     * Block sizes are chosen adaptively. Current thread runs ranges of 1, 2, 4, ... first indices
+     * until {@link #SAMPLE_NANOS} are spent and at least one merge is done, estimating costs of one index
+     * and of one merge.
+     * If the rest is cheaper than {@link #SEQUENTIAL_NANOS}, it is processed by current thread too.
+     * Otherwise it is split into blocks of about {@link #BLOCK_NANOS} each,
+     * from {@code threadsNumber} to {@link #MAX_BLOCKS_PER_THREAD} blocks per thread,
+     * which are handed out to threads dynamically.
+     * Every block costs at least {@link #MERGES_PER_BLOCK} merges, so merging doesn't dominate
+     * when it costs about as much as an index, while blocks of expensive indices may be single indices.
+     * <p>
+     * With {@link ParallelMapper} blocks are mapped by it.
+     * Otherwise blocks are run on {@link ForkJoinPool} with parallelism of {@code threadsNumber},
+     * shared by calls with the same parallelism,
+     * idle workers steal remaining blocks, and neighbouring block results are merged as soon as both are ready.
+     */
+    <R> R doTask(int threadsNumber, int size, RangeTask<R> task, BinaryOperator<R> combiner)
             throws InterruptedException {
-        threadsNumber = Math.max(1, Math.min(values.size(), threadsNumber));
-        List<Stream<? extends T>> concurrentTasks = new ArrayList<>();
-        int sizeOfBlock = values.size() / threadsNumber;
-        int remaining = values.size() % threadsNumber;
+        threadsNumber = Math.max(1, Math.min(size, threadsNumber));
+        if (threadsNumber == 1) {
+            return task.apply(0, size);
+        }
 
-        for (int l, r = 0, i = 0; i < threadsNumber; ++i) {
-            l = r;
-            r = l + sizeOfBlock;
-            if (remaining > 0) {
-                ++r;
-                --remaining;
+        R result = null;
+        int sampled = 0;
+        long elapsed = 0;
+        long merged = 0;
+        int merges = 0;
+        for (int step = 1; sampled < size && (elapsed < SAMPLE_NANOS || sampled == 1); step *= 2) {
+            int to = (int) Math.min(size, (long) sampled + step);
+            long start = System.nanoTime();
+            R part = task.apply(sampled, to);
+            long finish = System.nanoTime();
+            elapsed += finish - start;
+            if (sampled == 0) {
+                result = part;
+            } else {
+                result = combiner.apply(result, part);
+                merged += System.nanoTime() - finish;
+                ++merges;
             }
-            concurrentTasks.add(values.subList(l, r).stream());
+            sampled = to;
+        }
+        int remaining = size - sampled;
+        if (remaining == 0) {
+            return result;
         }
+        double work = (double) elapsed / sampled * remaining;
+        if (work < SEQUENTIAL_NANOS) {
+            return combiner.apply(result, task.apply(sampled, size));
+        }
+        long blocks = Math.min((long) threadsNumber * MAX_BLOCKS_PER_THREAD, (long) Math.ceil(work / BLOCK_NANOS));
+        double minBlockSize = Math.max(1, MERGES_PER_BLOCK * ((double) merged / merges) / ((double) elapsed / sampled));
+        blocks = Math.min(blocks, (long) (remaining / minBlockSize));
+        Blocks ranges = new Blocks(sampled, remaining, (int) Math.min(remaining, Math.max(threadsNumber, blocks)));
 
-        List<R> result;
-        if (parallelMapper != null) {
-            result = parallelMapper.map(task, concurrentTasks);
+        R rest;
+        if (parallelMapper == null) {
+            rest = invoke(threadsNumber, new BlockTask<>(ranges, task, combiner));
         } else {
-            List<Thread> workers = new ArrayList<>();
-            result = new ArrayList<>(Collections.nCopies(threadsNumber, null));
-            for (int i = 0; i < threadsNumber; ++i) {
-                final int pos = i;
-                Thread thread = new Thread(() -> result.set(pos, task.apply(concurrentTasks.get(pos))));
-                workers.add(thread);
-                thread.start();
-            }
-            InterruptedException exception = null;
-            for (Thread thread : workers) {
+            List<Integer> indices = new ArrayList<>(ranges.count);
+            for (int i = 0; i < ranges.count; ++i) {
+                indices.add(i);
+            }
+            List<R> results = parallelMapper.map(i -> task.apply(ranges.bound(i), ranges.bound(i + 1)), indices);
+            rest = results.get(0);
+            for (int i = 1; i < ranges.count; ++i) {
+                rest = combiner.apply(rest, results.get(i));
+            }
+        }
+        return combiner.apply(result, rest);
+    }
+
+    /**
+     * Runs {@code task} over blocks of indices {@code [0, size)} and returns block results in order of blocks.
+     * Blocks are chosen as in {@link #doTask}, so results should record their ranges if needed.
+     */
+    <R> List<R> doBlocks(int threadsNumber, int size, RangeTask<R> task) throws InterruptedException {
+        return doTask(threadsNumber, size, (from, to) -> Collections.singletonList(task.apply(from, to)),
+                IterativeParallelism::concat);
+    }
+
+    /**
+     * Split of {@code size} indices starting from {@code offset} into {@code count} equal blocks.
+     */
+    private static class Blocks {
+        final int offset;
+        final int size;
+        final int count;
+
+        Blocks(int offset, int size, int count) {
+            this.offset = offset;
+            this.size = size;
+            this.count = count;
+        }
+
+        int bound(int block) {
+            return offset + (int) ((long) size * block / count);
+        }
+    }
+
+    /**
+     * Runs task on pool of given parallelism and waits for its result.
+     * If current thread is interrupted, blocks, which are not started yet, are skipped.
+     */
+    private static <R> R invoke(int parallelism, ForkJoinTask<R> task) throws InterruptedException {
+        while (true) {
+            ForkJoinPool pool;
+            synchronized (POOLS) {
+                pool = POOLS.computeIfAbsent(parallelism, ForkJoinPool::new);
+            }
+            try {
+                pool.execute(task);
+                break;
+            } catch (RejectedExecutionException e) {
+                // Pool was evicted concurrently, take another one
+            }
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            task.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    /**
+     * Computes results of blocks {@code [from, to)}, splitting range in halves until single block is left.
+     * Left half is computed by current thread, so blocks are started from the front of values.
+     * Failed block completes root task with its exception at once.
+     * Once root task is done, because it is cancelled or some block failed, remaining blocks are not started.
+     */
+    @SuppressWarnings("serial")
+    private static class BlockTask<R> extends RecursiveTask<R> {
+        private final BlockTask<R> root;
+        private final Blocks blocks;
+        private final int from;
+        private final int to;
+        private final RangeTask<R> task;
+        private final BinaryOperator<R> combiner;
+
+        BlockTask(Blocks blocks, RangeTask<R> task, BinaryOperator<R> combiner) {
+            this(null, blocks, 0, blocks.count, task, combiner);
+        }
+
+        private BlockTask(BlockTask<R> root, Blocks blocks, int from, int to,
+                          RangeTask<R> task, BinaryOperator<R> combiner) {
+            this.root = root == null ? this : root;
+            this.blocks = blocks;
+            this.from = from;
+            this.to = to;
+            this.task = task;
+            this.combiner = combiner;
+        }
+
+        @Override
+        protected R compute() {
+            if (root != this && root.isDone()) {
+                throw new CancellationException();
+            }
+            if (to - from == 1) {
                 try {
-                    thread.join();
-                } catch (InterruptedException e) {
-                    if (exception == null) {
-                        exception = new InterruptedException();
-                    }
-                    exception.addSuppressed(e);
+                    return task.apply(blocks.bound(from), blocks.bound(to));
+                } catch (RuntimeException | Error e) {
+                    root.completeExceptionally(e);
+                    throw e;
                 }
             }
-            if (exception != null) {
-                throw exception;
-            }
+            int middle = (from + to) >>> 1;
+            BlockTask<R> right = new BlockTask<>(root, blocks, middle, to, task, combiner);
+            right.fork();
+            R left = new BlockTask<>(root, blocks, from, middle, task, combiner).compute();
+            return combiner.apply(left, right.join());
         }
-        return collector.apply(result.stream());
+    }
+
+    /**
+     * Returns list, whose {@link List#get(int)} is fast.
+     */
+    private static <T> List<? extends T> randomAccess(List<? extends T> values) {
+        return values instanceof RandomAccess ? values : new ArrayList<>(values);
     }
 
     @Override
     public <T> T maximum(int threads, List<? extends T> values, Comparator<? super T> comparator)
             throws InterruptedException {
-        Function<? super Stream<? extends T>, ? extends T> maxStream = stream -> stream.max(comparator).orElse(null);
-        return doTask(threads, values, maxStream, maxStream);
+        return minimum(threads, values, Collections.reverseOrder(comparator));
     }
 
+    /**
+     * First of minimal values is returned.
+     */
     @Override
     public <T> T minimum(int threads, List<? extends T> values, Comparator<? super T> comparator)
             throws InterruptedException {
-        Function<? super Stream<? extends T>, ? extends T> minStream = stream -> stream.min(comparator).orElse(null);
-        return doTask(threads, values, minStream, minStream);
+        if (values.isEmpty()) {
+            throw new NoSuchElementException("No values are given");
+        }
+        List<? extends T> list = randomAccess(values);
+        return doTask(threads, list.size(), (from, to) -> {
+            T result = list.get(from);
+            for (int i = from + 1; i < to; ++i) {
+                T value = list.get(i);
+                if (comparator.compare(value, result) < 0) {
+                    result = value;
+                }
+            }
+            return result;
+        }, BinaryOperator.minBy(comparator));
     }
 
     @Override
     public <T> boolean all(int threads, List<? extends T> values, Predicate<? super T> predicate)
             throws InterruptedException {
-        return doTask(threads, values, stream -> stream.allMatch(predicate), stream -> stream.allMatch(Boolean::booleanValue));
+        return !any(threads, values, predicate.negate());
     }
 
+    /**
+     * Blocks share a flag, which is raised by the first one finding a matching value.
+     * Other blocks check it before every value and stop as soon as it is raised.
+     */
     @Override
     public <T> boolean any(int threads, List<? extends T> values, Predicate<? super T> predicate)
             throws InterruptedException {
-        return doTask(threads, values, stream -> stream.anyMatch(predicate), stream -> stream.anyMatch(Boolean::booleanValue));
+        List<? extends T> list = randomAccess(values);
+        AtomicBoolean found = new AtomicBoolean();
+        return doTask(threads, list.size(), (from, to) -> {
+            for (int i = from; i < to && !found.get(); ++i) {
+                if (predicate.test(list.get(i))) {
+                    found.set(true);
+                }
+            }
+            return found.get();
+        }, Boolean::logicalOr);
     }
 
+    /**
+     * First pass marks survivors of every block in its own bit set,
+     * second pass copies them to their positions in single array of exact size.
+     *
+     * @return fixed-size list of survivors.
+     */
     @Override
     public <T> List<T> filter(int threads, List<? extends T> values, Predicate<? super T> predicate) throws InterruptedException {
-        return doTask(threads, values, stream -> stream.filter(predicate).collect(Collectors.toList()),
-                stream -> stream.flatMap(Collection::stream).collect(Collectors.toList()));
+        List<? extends T> list = randomAccess(values);
+        List<Partial<BitSet>> marks = doBlocks(threads, list.size(), (from, to) -> {
+            BitSet survivors = new BitSet(to - from);
+            for (int i = from; i < to; ++i) {
+                if (predicate.test(list.get(i))) {
+                    survivors.set(i - from);
+                }
+            }
+            return new Partial<>(from, survivors);
+        });
+        int[] offsets = new int[marks.size() + 1];
+        for (int k = 0; k < marks.size(); ++k) {
+            offsets[k + 1] = offsets[k] + marks.get(k).value.cardinality();
+        }
+        Object[] result = new Object[offsets[marks.size()]];
+        doTask(threads, marks.size(), (first, last) -> {
+            for (int k = first; k < last; ++k) {
+                int from = marks.get(k).from;
+                BitSet survivors = marks.get(k).value;
+                int offset = offsets[k];
+                for (int i = survivors.nextSetBit(0); i >= 0; i = survivors.nextSetBit(i + 1)) {
+                    result[offset++] = list.get(from + i);
+                }
+            }
+            return null;
+        }, (left, right) -> null);
+        return asList(result);
     }
 
+    /**
+     * Blocks write mapped values directly to their positions in the resulting array.
+     *
+     * @return fixed-size list of mapped values.
+     */
     @Override
     public <T, U> List<U> map(int threads, List<? extends T> values, Function<? super T, ? extends U> function) throws InterruptedException {
-        return doTask(threads, values, stream -> stream.map(function).collect(Collectors.toList()),
-                stream -> stream.flatMap(Collection::stream).collect(Collectors.toList()));
+        List<? extends T> list = randomAccess(values);
+        Object[] result = new Object[list.size()];
+        doTask(threads, list.size(), (from, to) -> {
+            for (int i = from; i < to; ++i) {
+                result[i] = function.apply(list.get(i));
+            }
+            return null;
+        }, (left, right) -> null);
+        return asList(result);
     }
 
+    /**
+     * Every block appends its values to its own chunk, then copies the chunk
+     * to its region of single buffer of exact length.
+     * Buffer is filled as Latin-1 bytes first, so it takes a byte per char, as the resulting string does,
+     * and only if some chunk has wider chars, it is refilled as chars.
+     * Public API can't create string without copying, so the buffer is copied once more.
+     */
     @Override
     public String join(int threads, List<?> values) throws InterruptedException {
-        return doTask(threads, values, stream -> stream.map(Object::toString).collect(Collectors.joining()),
-                stream -> stream.collect(Collectors.joining()));
+        List<?> list = randomAccess(values);
+        List<StringBuilder> chunks = doBlocks(threads, list.size(), (from, to) -> {
+            StringBuilder chunk = new StringBuilder();
+            for (int i = from; i < to; ++i) {
+                chunk.append(list.get(i));
+            }
+            return chunk;
+        });
+        int[] offsets = new int[chunks.size() + 1];
+        for (int k = 0; k < chunks.size(); ++k) {
+            long offset = (long) offsets[k] + chunks.get(k).length();
+            if (offset > MAX_STRING_LENGTH) {
+                throw new OutOfMemoryError("Joined string is too long");
+            }
+            offsets[k + 1] = (int) offset;
+        }
+        String result = joinLatin(threads, chunks, offsets);
+        return result != null ? result : joinChars(threads, chunks, offsets);
+    }
+
+    /**
+     * Copies chunks to Latin-1 buffer.
+     *
+     * @return joined string, or {@code null} if some chunk has chars out of Latin-1.
+     */
+    private String joinLatin(int threads, List<StringBuilder> chunks, int[] offsets) throws InterruptedException {
+        byte[] result = new byte[offsets[chunks.size()]];
+        AtomicBoolean wide = new AtomicBoolean();
+        doTask(threads, chunks.size(), (first, last) -> {
+            char[] window = new char[JOIN_COPY_WINDOW];
+            for (int k = first; k < last && !wide.get(); ++k) {
+                StringBuilder chunk = chunks.get(k);
+                for (int from = 0; from < chunk.length() && !wide.get(); from += window.length) {
+                    int length = Math.min(chunk.length() - from, window.length);
+                    chunk.getChars(from, from + length, window, 0);
+                    for (int i = 0; i < length; ++i) {
+                        if (window[i] > 0xFF) {
+                            wide.set(true);
+                            break;
+                        }
+                        result[offsets[k] + from + i] = (byte) window[i];
+                    }
+                }
+            }
+            return null;
+        }, (left, right) -> null);
+        return wide.get() ? null : new String(result, StandardCharsets.ISO_8859_1);
+    }
+
+    private String joinChars(int threads, List<StringBuilder> chunks, int[] offsets) throws InterruptedException {
+        char[] result = new char[offsets[chunks.size()]];
+        doTask(threads, chunks.size(), (first, last) -> {
+            for (int k = first; k < last; ++k) {
+                chunks.get(k).getChars(0, chunks.get(k).length(), result, offsets[k]);
+            }
+            return null;
+        }, (left, right) -> null);
+        return new String(result);
+    }
+
+    /**
+     * Writes concatenation of string representations of values, without building it.
+     * Values are converted to strings in parallel by windows of {@link #JOIN_WINDOW} values,
+     * and written in order by current thread.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to join.
+     * @param writer  writer to write to.
+     * @throws InterruptedException if executing thread was interrupted.
+     * @throws IOException          if writer fails.
+     */
+    public void join(int threads, List<?> values, Writer writer) throws InterruptedException, IOException {
+        List<?> list = randomAccess(values);
+        String[] strings = new String[Math.min(list.size(), JOIN_WINDOW)];
+        for (int from = 0; from < list.size(); from += strings.length) {
+            int size = Math.min(list.size() - from, strings.length);
+            int offset = from;
+            doTask(threads, size, (first, last) -> {
+                for (int i = first; i < last; ++i) {
+                    strings[i] = String.valueOf(list.get(offset + i));
+                }
+                return null;
+            }, (left, right) -> null);
+            for (int i = 0; i < size; ++i) {
+                writer.write(strings[i]);
+            }
+        }
+    }
+
+    /**
+     * Reduces values by associative operator.
+     *
+     * @param threads  number of concurrent threads.
+     * @param values   values to reduce.
+     * @param identity identity element of operator.
+     * @param operator associative operator.
+     * @return reduction of values, or {@code identity} if no values are given.
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> T reduce(int threads, List<? extends T> values, T identity, BinaryOperator<T> operator)
+            throws InterruptedException {
+        return mapReduce(threads, values, Function.identity(), new Monoid<>(identity, operator));
+    }
+
+    /**
+     * Maps values and reduces results by monoid in single pass.
+     * Every block folds its values into its own partial result, partial results are merged in order of blocks.
+     *
+     * @param threads number of concurrent threads.
+     * @param values  values to reduce.
+     * @param lifter  function mapping values to elements of monoid.
+     * @param monoid  monoid to reduce by.
+     * @return reduction of mapped values, or identity of monoid if no values are given.
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T, R> R mapReduce(int threads, List<? extends T> values,
+                              Function<? super T, ? extends R> lifter, Monoid<R> monoid)
+            throws InterruptedException {
+        List<? extends T> list = randomAccess(values);
+        BinaryOperator<R> operator = monoid.getOperator();
+        return doTask(threads, list.size(), (from, to) -> {
+            R result = monoid.getIdentity();
+            for (int i = from; i < to; ++i) {
+                result = operator.apply(result, lifter.apply(list.get(i)));
+            }
+            return result;
+        }, operator);
+    }
+
+    /**
+     * Computes inclusive prefix scan: {@code i}-th result is {@code values[0] op values[1] op ... op values[i]}.
+     * First pass reduces every block, second pass scans every block starting from reduction of preceding ones.
+     *
+     * @param threads  number of concurrent threads.
+     * @param values   values to scan.
+     * @param operator associative operator.
+     * @return fixed-size list of prefix reductions.
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> List<T> scan(int threads, List<? extends T> values, BinaryOperator<T> operator)
+            throws InterruptedException {
+        List<? extends T> list = randomAccess(values);
+        Object[] result = new Object[list.size()];
+        if (threads <= 1 || list.size() <= 1) {
+            scan(list, operator, result, 0, list.size(), false, null);
+            return asList(result);
+        }
+        List<Partial<T>> partials = doBlocks(threads, list.size(), (from, to) -> {
+            T total = list.get(from);
+            for (int i = from + 1; i < to; ++i) {
+                total = operator.apply(total, list.get(i));
+            }
+            return new Partial<>(from, total);
+        });
+        List<T> seeds = new ArrayList<>(Collections.nCopies(partials.size(), null));
+        for (int k = 1; k < partials.size(); ++k) {
+            T previous = partials.get(k - 1).value;
+            seeds.set(k, k == 1 ? previous : operator.apply(seeds.get(k - 1), previous));
+        }
+        doTask(threads, partials.size(), (first, last) -> {
+            for (int k = first; k < last; ++k) {
+                int to = k + 1 < partials.size() ? partials.get(k + 1).from : list.size();
+                scan(list, operator, result, partials.get(k).from, to, k > 0, seeds.get(k));
+            }
+            return null;
+        }, (left, right) -> null);
+        return asList(result);
+    }
+
+    private static <T> void scan(List<? extends T> values, BinaryOperator<T> operator, Object[] result,
+                                 int from, int to, boolean seeded, T seed) {
+        if (from == to) {
+            return;
+        }
+        T accumulator = seeded ? operator.apply(seed, values.get(from)) : values.get(from);
+        result[from] = accumulator;
+        for (int i = from + 1; i < to; ++i) {
+            accumulator = operator.apply(accumulator, values.get(i));
+            result[i] = accumulator;
+        }
+    }
+
+    /**
+     * Sorts values by stable parallel merge sort. Blocks are sorted separately,
+     * then sorted runs are merged pairwise, all pairs of a round being merged in parallel.
+     *
+     * @param threads    number of concurrent threads.
+     * @param values     values to sort.
+     * @param comparator value comparator.
+     * @return fixed-size list of sorted values.
+     * @throws InterruptedException if executing thread was interrupted.
+     */
+    public <T> List<T> sort(int threads, List<? extends T> values, Comparator<? super T> comparator)
+            throws InterruptedException {
+        @SuppressWarnings("unchecked")
+        Comparator<Object> order = (Comparator<Object>) comparator;
+        Object[] data = values.toArray();
+        if (threads <= 1 || data.length <= 1) {
+            Arrays.sort(data, order);
+            return asList(data);
+        }
+        List<Integer> starts = doBlocks(threads, data.length, (from, to) -> {
+            Arrays.sort(data, from, to, order);
+            return from;
+        });
+        int runs = starts.size();
+        int[] bounds = new int[runs + 1];
+        for (int k = 0; k < runs; ++k) {
+            bounds[k] = starts.get(k);
+        }
+        bounds[runs] = data.length;
+
+        Object[] source = data;
+        Object[] target = new Object[data.length];
+        while (runs > 1) {
+            int[] runBounds = bounds;
+            int runCount = runs;
+            Object[] from = source;
+            Object[] to = target;
+            int pairs = (runs + 1) / 2;
+            doTask(threads, pairs, (first, last) -> {
+                for (int pair = first; pair < last; ++pair) {
+                    merge(from, to, runBounds[2 * pair], runBounds[Math.min(2 * pair + 1, runCount)],
+                            runBounds[Math.min(2 * pair + 2, runCount)], order);
+                }
+                return null;
+            }, (left, right) -> null);
+
+            bounds = new int[pairs + 1];
+            for (int pair = 0; pair < pairs; ++pair) {
+                bounds[pair] = runBounds[2 * pair];
+            }
+            bounds[pairs] = data.length;
+            runs = pairs;
+            source = to;
+            target = from;
+        }
+        return asList(source);
+    }
+
+    private static void merge(Object[] source, Object[] target, int from, int middle, int to,
+                              Comparator<Object> comparator) {
+        int i = from, j = middle, k = from;
+        while (i < middle && j < to) {
+            target[k++] = comparator.compare(source[j], source[i]) < 0 ? source[j++] : source[i++];
+        }
+        System.arraycopy(source, i, target, k, middle - i);
+        System.arraycopy(source, j, target, k + middle - i, to - j);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> asList(Object[] values) {
+        return (List<T>) Arrays.asList(values);
+    }
+
+    /**
+     * Result of block starting at index {@code from}.
+     */
+    private static class Partial<T> {
+        final int from;
+        final T value;
+
+        Partial(int from, T value) {
+            this.from = from;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Merges lists of per-block results without copying the results themselves.
+     */
+    private static <E> List<E> concat(List<E> left, List<E> right) {
+        List<E> result = new ArrayList<>(left.size() + right.size());
+        result.addAll(left);
+        result.addAll(right);
+        return result;
     }
 }
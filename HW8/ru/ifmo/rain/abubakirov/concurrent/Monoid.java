@@ -0,0 +1,29 @@
+package ru.ifmo.rain.abubakirov.concurrent;
+
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+
+/**
+ * Associative operation with identity element, used by {@link IterativeParallelism#mapReduce}.
+ */
+public class Monoid<T> {
+    private final T identity;
+    private final BinaryOperator<T> operator;
+
+    /**
+     * @param identity identity element of operator.
+     * @param operator associative operator.
+     */
+    public Monoid(T identity, BinaryOperator<T> operator) {
+        this.identity = identity;
+        this.operator = Objects.requireNonNull(operator);
+    }
+
+    public T getIdentity() {
+        return identity;
+    }
+
+    public BinaryOperator<T> getOperator() {
+        return operator;
+    }
+}
@@ -0,0 +1,453 @@
+package ru.ifmo.rain.abubakirov.concurrent;
+
+import info.kgeorgiy.java.advanced.mapper.ParallelMapper;
+
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.*;
+
+/**
+ * Parallel operations over arrays of primitive values, running on blocks of indices
+ * the same way as {@link IterativeParallelism}. Values are never boxed,
+ * blocks are processed by plain loops over arrays.
+ */
+public class PrimitiveParallelism {
+    private final IterativeParallelism parallelism;
+
+    /**
+     * Default constructor.
+     */
+    public PrimitiveParallelism() {
+        this.parallelism = new IterativeParallelism();
+    }
+
+    /**
+     * Constructor from custom parallelMapper
+     * @param parallelMapper mapper running blocks.
+     */
+    public PrimitiveParallelism(ParallelMapper parallelMapper) {
+        this.parallelism = new IterativeParallelism(parallelMapper);
+    }
+
+    public int minimum(int threads, int[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        return parallelism.doTask(threads, values.length, (from, to) -> {
+            int result = values[from];
+            for (int i = from + 1; i < to; ++i) {
+                result = Math.min(result, values[i]);
+            }
+            return result;
+        }, Math::min);
+    }
+
+    public int maximum(int threads, int[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        return parallelism.doTask(threads, values.length, (from, to) -> {
+            int result = values[from];
+            for (int i = from + 1; i < to; ++i) {
+                result = Math.max(result, values[i]);
+            }
+            return result;
+        }, Math::max);
+    }
+
+    /**
+     * @return sum of values, which can't overflow for arrays of {@code int}.
+     */
+    public long sum(int threads, int[] values) throws InterruptedException {
+        return parallelism.doTask(threads, values.length, (from, to) -> {
+            long result = 0;
+            for (int i = from; i < to; ++i) {
+                result += values[i];
+            }
+            return result;
+        }, Long::sum);
+    }
+
+    public boolean any(int threads, int[] values, IntPredicate predicate) throws InterruptedException {
+        return anyIndex(threads, values.length, i -> predicate.test(values[i]));
+    }
+
+    public boolean all(int threads, int[] values, IntPredicate predicate) throws InterruptedException {
+        return !anyIndex(threads, values.length, i -> !predicate.test(values[i]));
+    }
+
+    /**
+     * Every block packs its survivors in place of its values in scratch array,
+     * then survivors are copied to exactly sized result at offsets counted from block sizes.
+     */
+    public int[] filter(int threads, int[] values, IntPredicate predicate) throws InterruptedException {
+        int[] survivors = new int[values.length];
+        List<Block> blocks = parallelism.doBlocks(threads, values.length, (from, to) -> {
+            int count = from;
+            for (int i = from; i < to; ++i) {
+                if (predicate.test(values[i])) {
+                    survivors[count++] = values[i];
+                }
+            }
+            return new Block(from, count - from);
+        });
+        return compact(threads, survivors, blocks, int[]::new);
+    }
+
+    public int[] map(int threads, int[] values, IntUnaryOperator function) throws InterruptedException {
+        int[] result = new int[values.length];
+        parallelism.doTask(threads, values.length, (from, to) -> {
+            for (int i = from; i < to; ++i) {
+                result[i] = function.applyAsInt(values[i]);
+            }
+            return null;
+        }, (left, right) -> null);
+        return result;
+    }
+
+    /**
+     * Computes inclusive prefix scan: {@code result[i] = values[0] op values[1] op ... op values[i]}.
+     * First pass reduces every block, second pass scans every block starting from reduction of preceding ones.
+     *
+     * @param operator associative operator.
+     */
+    public int[] scan(int threads, int[] values, IntBinaryOperator operator) throws InterruptedException {
+        int[] result = new int[values.length];
+        if (threads <= 1 || values.length <= 1) {
+            scan(values, operator, result, 0, values.length, false, 0);
+            return result;
+        }
+        List<Block> blocks = parallelism.doBlocks(threads, values.length, (from, to) -> {
+            int total = values[from];
+            for (int i = from + 1; i < to; ++i) {
+                total = operator.applyAsInt(total, values[i]);
+            }
+            return new Block(from, total);
+        });
+        int[] bounds = getBounds(blocks, values.length);
+        int[] seeds = new int[blocks.size()];
+        for (int k = 1; k < seeds.length; ++k) {
+            int total = (int) blocks.get(k - 1).value;
+            seeds[k] = k == 1 ? total : operator.applyAsInt(seeds[k - 1], total);
+        }
+        parallelism.doTask(threads, blocks.size(), (first, last) -> {
+            for (int k = first; k < last; ++k) {
+                scan(values, operator, result, bounds[k], bounds[k + 1], k > 0, seeds[k]);
+            }
+            return null;
+        }, (left, right) -> null);
+        return result;
+    }
+
+    private static void scan(int[] values, IntBinaryOperator operator, int[] result,
+                             int from, int to, boolean seeded, int seed) {
+        if (from == to) {
+            return;
+        }
+        int accumulator = seeded ? operator.applyAsInt(seed, values[from]) : values[from];
+        result[from] = accumulator;
+        for (int i = from + 1; i < to; ++i) {
+            accumulator = operator.applyAsInt(accumulator, values[i]);
+            result[i] = accumulator;
+        }
+    }
+
+    public long minimum(int threads, long[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        return parallelism.doTask(threads, values.length, (from, to) -> {
+            long result = values[from];
+            for (int i = from + 1; i < to; ++i) {
+                result = Math.min(result, values[i]);
+            }
+            return result;
+        }, Math::min);
+    }
+
+    public long maximum(int threads, long[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        return parallelism.doTask(threads, values.length, (from, to) -> {
+            long result = values[from];
+            for (int i = from + 1; i < to; ++i) {
+                result = Math.max(result, values[i]);
+            }
+            return result;
+        }, Math::max);
+    }
+
+    public long sum(int threads, long[] values) throws InterruptedException {
+        return parallelism.doTask(threads, values.length, (from, to) -> {
+            long result = 0;
+            for (int i = from; i < to; ++i) {
+                result += values[i];
+            }
+            return result;
+        }, Long::sum);
+    }
+
+    public boolean any(int threads, long[] values, LongPredicate predicate) throws InterruptedException {
+        return anyIndex(threads, values.length, i -> predicate.test(values[i]));
+    }
+
+    public boolean all(int threads, long[] values, LongPredicate predicate) throws InterruptedException {
+        return !anyIndex(threads, values.length, i -> !predicate.test(values[i]));
+    }
+
+    /**
+     * Every block packs its survivors in place of its values in scratch array,
+     * then survivors are copied to exactly sized result at offsets counted from block sizes.
+     */
+    public long[] filter(int threads, long[] values, LongPredicate predicate) throws InterruptedException {
+        long[] survivors = new long[values.length];
+        List<Block> blocks = parallelism.doBlocks(threads, values.length, (from, to) -> {
+            int count = from;
+            for (int i = from; i < to; ++i) {
+                if (predicate.test(values[i])) {
+                    survivors[count++] = values[i];
+                }
+            }
+            return new Block(from, count - from);
+        });
+        return compact(threads, survivors, blocks, long[]::new);
+    }
+
+    public long[] map(int threads, long[] values, LongUnaryOperator function) throws InterruptedException {
+        long[] result = new long[values.length];
+        parallelism.doTask(threads, values.length, (from, to) -> {
+            for (int i = from; i < to; ++i) {
+                result[i] = function.applyAsLong(values[i]);
+            }
+            return null;
+        }, (left, right) -> null);
+        return result;
+    }
+
+    /**
+     * Computes inclusive prefix scan: {@code result[i] = values[0] op values[1] op ... op values[i]}.
+     * First pass reduces every block, second pass scans every block starting from reduction of preceding ones.
+     *
+     * @param operator associative operator.
+     */
+    public long[] scan(int threads, long[] values, LongBinaryOperator operator) throws InterruptedException {
+        long[] result = new long[values.length];
+        if (threads <= 1 || values.length <= 1) {
+            scan(values, operator, result, 0, values.length, false, 0);
+            return result;
+        }
+        List<Block> blocks = parallelism.doBlocks(threads, values.length, (from, to) -> {
+            long total = values[from];
+            for (int i = from + 1; i < to; ++i) {
+                total = operator.applyAsLong(total, values[i]);
+            }
+            return new Block(from, total);
+        });
+        int[] bounds = getBounds(blocks, values.length);
+        long[] seeds = new long[blocks.size()];
+        for (int k = 1; k < seeds.length; ++k) {
+            long total = blocks.get(k - 1).value;
+            seeds[k] = k == 1 ? total : operator.applyAsLong(seeds[k - 1], total);
+        }
+        parallelism.doTask(threads, blocks.size(), (first, last) -> {
+            for (int k = first; k < last; ++k) {
+                scan(values, operator, result, bounds[k], bounds[k + 1], k > 0, seeds[k]);
+            }
+            return null;
+        }, (left, right) -> null);
+        return result;
+    }
+
+    private static void scan(long[] values, LongBinaryOperator operator, long[] result,
+                             int from, int to, boolean seeded, long seed) {
+        if (from == to) {
+            return;
+        }
+        long accumulator = seeded ? operator.applyAsLong(seed, values[from]) : values[from];
+        result[from] = accumulator;
+        for (int i = from + 1; i < to; ++i) {
+            accumulator = operator.applyAsLong(accumulator, values[i]);
+            result[i] = accumulator;
+        }
+    }
+
+    public double minimum(int threads, double[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        return parallelism.doTask(threads, values.length, (from, to) -> {
+            double result = values[from];
+            for (int i = from + 1; i < to; ++i) {
+                result = Math.min(result, values[i]);
+            }
+            return result;
+        }, Math::min);
+    }
+
+    public double maximum(int threads, double[] values) throws InterruptedException {
+        checkNotEmpty(values.length);
+        return parallelism.doTask(threads, values.length, (from, to) -> {
+            double result = values[from];
+            for (int i = from + 1; i < to; ++i) {
+                result = Math.max(result, values[i]);
+            }
+            return result;
+        }, Math::max);
+    }
+
+    /**
+     * @return sum of values. Blocks are summed separately, so rounding may differ from sequential sum.
+     */
+    public double sum(int threads, double[] values) throws InterruptedException {
+        return parallelism.doTask(threads, values.length, (from, to) -> {
+            double result = 0;
+            for (int i = from; i < to; ++i) {
+                result += values[i];
+            }
+            return result;
+        }, Double::sum);
+    }
+
+    public boolean any(int threads, double[] values, DoublePredicate predicate) throws InterruptedException {
+        return anyIndex(threads, values.length, i -> predicate.test(values[i]));
+    }
+
+    public boolean all(int threads, double[] values, DoublePredicate predicate) throws InterruptedException {
+        return !anyIndex(threads, values.length, i -> !predicate.test(values[i]));
+    }
+
+    /**
+     * Every block packs its survivors in place of its values in scratch array,
+     * then survivors are copied to exactly sized result at offsets counted from block sizes.
+     */
+    public double[] filter(int threads, double[] values, DoublePredicate predicate) throws InterruptedException {
+        double[] survivors = new double[values.length];
+        List<Block> blocks = parallelism.doBlocks(threads, values.length, (from, to) -> {
+            int count = from;
+            for (int i = from; i < to; ++i) {
+                if (predicate.test(values[i])) {
+                    survivors[count++] = values[i];
+                }
+            }
+            return new Block(from, count - from);
+        });
+        return compact(threads, survivors, blocks, double[]::new);
+    }
+
+    public double[] map(int threads, double[] values, DoubleUnaryOperator function) throws InterruptedException {
+        double[] result = new double[values.length];
+        parallelism.doTask(threads, values.length, (from, to) -> {
+            for (int i = from; i < to; ++i) {
+                result[i] = function.applyAsDouble(values[i]);
+            }
+            return null;
+        }, (left, right) -> null);
+        return result;
+    }
+
+    /**
+     * Computes inclusive prefix scan: {@code result[i] = values[0] op values[1] op ... op values[i]}.
+     * First pass reduces every block, second pass scans every block starting from reduction of preceding ones.
+     *
+     * @param operator associative operator.
+     */
+    public double[] scan(int threads, double[] values, DoubleBinaryOperator operator) throws InterruptedException {
+        double[] result = new double[values.length];
+        if (threads <= 1 || values.length <= 1) {
+            scan(values, operator, result, 0, values.length, false, 0);
+            return result;
+        }
+        List<Block> blocks = parallelism.doBlocks(threads, values.length, (from, to) -> {
+            double total = values[from];
+            for (int i = from + 1; i < to; ++i) {
+                total = operator.applyAsDouble(total, values[i]);
+            }
+            return new Block(from, total);
+        });
+        int[] bounds = getBounds(blocks, values.length);
+        double[] seeds = new double[blocks.size()];
+        for (int k = 1; k < seeds.length; ++k) {
+            double total = blocks.get(k - 1).doubleValue;
+            seeds[k] = k == 1 ? total : operator.applyAsDouble(seeds[k - 1], total);
+        }
+        parallelism.doTask(threads, blocks.size(), (first, last) -> {
+            for (int k = first; k < last; ++k) {
+                scan(values, operator, result, bounds[k], bounds[k + 1], k > 0, seeds[k]);
+            }
+            return null;
+        }, (left, right) -> null);
+        return result;
+    }
+
+    private static void scan(double[] values, DoubleBinaryOperator operator, double[] result,
+                             int from, int to, boolean seeded, double seed) {
+        if (from == to) {
+            return;
+        }
+        double accumulator = seeded ? operator.applyAsDouble(seed, values[from]) : values[from];
+        result[from] = accumulator;
+        for (int i = from + 1; i < to; ++i) {
+            accumulator = operator.applyAsDouble(accumulator, values[i]);
+            result[i] = accumulator;
+        }
+    }
+
+    private static void checkNotEmpty(int length) {
+        if (length == 0) {
+            throw new NoSuchElementException("No values are given");
+        }
+    }
+
+    private boolean anyIndex(int threads, int size, IntPredicate matches) throws InterruptedException {
+        AtomicBoolean found = new AtomicBoolean();
+        return parallelism.doTask(threads, size, (from, to) -> {
+            for (int i = from; i < to && !found.get(); ++i) {
+                if (matches.test(i)) {
+                    found.set(true);
+                }
+            }
+            return found.get();
+        }, Boolean::logicalOr);
+    }
+
+    /**
+     * Copies survivors packed at the start of every block of {@code survivors} array to exactly sized array.
+     */
+    private <A> A compact(int threads, A survivors, List<Block> blocks, IntFunction<A> newArray)
+            throws InterruptedException {
+        int[] offsets = new int[blocks.size() + 1];
+        for (int k = 0; k < blocks.size(); ++k) {
+            offsets[k + 1] = offsets[k] + (int) blocks.get(k).value;
+        }
+        A result = newArray.apply(offsets[blocks.size()]);
+        parallelism.doTask(threads, blocks.size(), (first, last) -> {
+            for (int k = first; k < last; ++k) {
+                System.arraycopy(survivors, blocks.get(k).from, result, offsets[k], offsets[k + 1] - offsets[k]);
+            }
+            return null;
+        }, (left, right) -> null);
+        return result;
+    }
+
+    private static int[] getBounds(List<Block> blocks, int size) {
+        int[] bounds = new int[blocks.size() + 1];
+        for (int k = 0; k < blocks.size(); ++k) {
+            bounds[k] = blocks.get(k).from;
+        }
+        bounds[blocks.size()] = size;
+        return bounds;
+    }
+
+    /**
+     * Result of block starting at index {@code from}: integral or floating-point value.
+     */
+    private static class Block {
+        final int from;
+        final long value;
+        final double doubleValue;
+
+        Block(int from, long value) {
+            this.from = from;
+            this.value = value;
+            this.doubleValue = 0;
+        }
+
+        Block(int from, double doubleValue) {
+            this.from = from;
+            this.value = 0;
+            this.doubleValue = doubleValue;
+        }
+    }
+}